@@ -0,0 +1,74 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.LibraryApiApplication;
+import br.com.libraryapi.api.services.BookSearchIndex;
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.IsbnFilter;
+import br.com.libraryapi.model.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class CatalogState {
+
+        @Param({"10000", "1000000"})
+        int books;
+
+        @Param({"true", "false"})
+        boolean isbnFilter;
+
+        ConfigurableApplicationContext context;
+        BookService bookService;
+        AtomicLong nextIsbn;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.main.banner-mode=off",
+                            "logging.level.root=WARN",
+                            "spring.datasource.url=jdbc:h2:mem:catalog-bench;DB_CLOSE_DELAY=-1",
+                            "spring.jpa.show-sql=false",
+                            "application.isbn-filter.enabled=" + isbnFilter)
+                    .run();
+
+            new CatalogSeeder(context.getBean(JdbcTemplate.class)).seed(books, 0);
+            context.getBean(BookSearchIndex.class).rebuild();
+            context.getBean(IsbnFilter.class).rebuild();
+
+            bookService = context.getBean(BookService.class);
+            nextIsbn = new AtomicLong(books + 1L);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Book saveNewBook(CatalogState state) {
+        long id = state.nextIsbn.getAndIncrement();
+        Book book = Book.builder()
+                .title(CatalogSeeder.title(id))
+                .author("Author " + (id % 1_000))
+                .isbn(CatalogSeeder.isbn(id))
+                .build();
+
+        return state.bookService.save(book);
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.libraryapi.benchmarks;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogSeeder {
+    static final int BATCH_SIZE = 10_000;
+    static final int LOAN_WINDOW_DAYS = 30;
+    static final int ACTIVE_LOAN_EVERY = 10;
+    static final int BOOK_ID_ALLOCATION = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String isbn(long bookId) {
+        return String.format("978%010d", bookId);
+    }
+
+    public static String title(long bookId) {
+        return "Title " + bookId;
+    }
+
+    public static String customer(long loanNumber) {
+        return "Customer " + (loanNumber % 100_000);
+    }
+
+    public static boolean isActive(long bookId) {
+        return bookId % ACTIVE_LOAN_EVERY == 0;
+    }
+
+    public void seed(int books, int loansPerBook) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long id = 1; id <= books; id++) {
+            batch.add(new Object[]{id, title(id), "Author " + (id % 1_000), isbn(id)});
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn) values (?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+        jdbcTemplate.execute("alter sequence book_seq restart with " + (books + BOOK_ID_ALLOCATION + 1));
+
+        LocalDate today = LocalDate.now();
+        long loans = (long) books * loansPerBook;
+        for (long n = 0; n < loans; n++) {
+            long bookId = n % books + 1;
+            boolean lastRound = n / books == loansPerBook - 1;
+            boolean returned = !(lastRound && isActive(bookId));
+            LocalDate loanDate = today.minusDays(n % LOAN_WINDOW_DAYS);
+
+            batch.add(new Object[]{customer(n), "customer" + (n % 100_000) + "@email.com",
+                    Date.valueOf(loanDate), returned, bookId, returned ? null : bookId});
+            if (batch.size() == BATCH_SIZE) {
+                insertLoans(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertLoans(batch);
+        }
+    }
+
+    private void insertLoans(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("insert into loan (customer, customer_email, loan_date, returned, book_id, open_book_id)" +
+                " values (?, ?, ?, ?, ?, ?)", batch);
+    }
+}
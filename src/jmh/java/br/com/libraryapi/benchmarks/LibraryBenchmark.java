@@ -0,0 +1,129 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.mappers.LoanMapper;
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.ExportService;
+import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import br.com.libraryapi.api.services.ScheduleService;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LibraryBenchmark {
+
+    @State(Scope.Thread)
+    public static class Services {
+        BookService bookService;
+        LoanService loanService;
+        LoanRepository loanRepository;
+        LoanMapper loanMapper;
+        ExportService exportService;
+        ScheduleService scheduleService;
+
+        @Setup
+        public void setUp(LibraryState state) {
+            bookService = state.bean(BookService.class);
+            loanService = state.bean(LoanService.class);
+            loanRepository = state.bean(LoanRepository.class);
+            loanMapper = state.bean(LoanMapper.class);
+            exportService = state.bean(ExportService.class);
+            scheduleService = state.bean(ScheduleService.class);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OverdueQueue {
+        @Setup(Level.Invocation)
+        public void setUp(LibraryState state) {
+            state.bean(OverdueLoanTracker.class).rebuild();
+        }
+    }
+
+    @Benchmark
+    public Optional<Book> isbnLookup(LibraryState state, Services services) {
+        return services.bookService.getBookByIsbn(CatalogSeeder.isbn(state.randomBookId()));
+    }
+
+    @Benchmark
+    public Page<Book> exampleSearch(LibraryState state, Services services) {
+        Book filter = Book.builder().title(CatalogSeeder.title(state.randomBookId())).build();
+        return services.bookService.find(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public boolean existsByBookAndNotReturned(LibraryState state, Services services) {
+        Book book = Book.builder().id(state.randomBookId()).build();
+        return services.loanRepository.existsByBookAndNotReturned(book);
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanListing(LibraryState state, Services services) {
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .isbn(CatalogSeeder.isbn(state.randomBookId()))
+                .customer(CatalogSeeder.customer(state.randomBookId()))
+                .build();
+
+        return services.loanService.find(filter, PageRequest.of(0, 100)).getContent().stream()
+                .map(services.loanMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ScheduleService.Report notifyOverdueLoans(Services services, OverdueQueue queue) {
+        return services.scheduleService.notifyOverdueLoans(LocalDate.now().plusDays(1));
+    }
+
+    @Benchmark
+    public Loan saveLoan(LibraryState state, Services services) {
+        Book book = Book.builder().id(state.randomReturnedBookId()).build();
+        Loan loan = Loan.builder()
+                .book(book)
+                .customer("Benchmark")
+                .customerEmail("benchmark@email.com")
+                .loanDate(LocalDate.now())
+                .build();
+
+        loan = services.loanService.save(loan);
+        loan.setReturned(true);
+        return services.loanService.update(loan);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Loan saveLoanConcurrently(LibraryState state, Services services) {
+        try {
+            return saveLoan(state, services);
+        } catch (BusinessException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void exportLoansCsv(Services services) throws IOException {
+        services.exportService.exportLoans(ExportService.Format.CSV, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.LibraryApiApplication;
+import br.com.libraryapi.api.services.ActiveLoanIndex;
+import br.com.libraryapi.api.services.BookSearchIndex;
+import br.com.libraryapi.api.services.IsbnFilter;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    @Param({"10000", "1000000", "10000000"})
+    int books;
+
+    @Param({"1"})
+    int loansPerBook;
+
+    ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:library-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false")
+                .run();
+
+        new CatalogSeeder(context.getBean(JdbcTemplate.class)).seed(books, loansPerBook);
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(IsbnFilter.class).rebuild();
+        context.getBean(ActiveLoanIndex.class).rebuild();
+        context.getBean(OverdueLoanTracker.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long randomBookId() {
+        return ThreadLocalRandom.current().nextLong(books) + 1;
+    }
+
+    public long randomReturnedBookId() {
+        long id = randomBookId();
+        return CatalogSeeder.isActive(id) ? (id % books) + 1 : id;
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.api.mappers.BookMapper;
+import br.com.libraryapi.api.mappers.LoanMapper;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MappingBenchmark {
+
+    @Param({"100"})
+    int pageSize;
+
+    ModelMapper modelMapper;
+    BookMapper bookMapper;
+    LoanMapper loanMapper;
+
+    Book book;
+    BookDTO bookDTO;
+    List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = new BookMapper();
+        loanMapper = new LoanMapper(bookMapper);
+
+        book = Book.builder().id(1L).title("Essencialismo").author("Greg McKeown").isbn("9788543102146").build();
+        bookDTO = BookDTO.builder().title("Essencialismo").author("Greg McKeown").isbn("9788543102146").build();
+
+        loans = new ArrayList<>(pageSize);
+        for (long i = 0; i < pageSize; i++) {
+            loans.add(Loan.builder()
+                    .id(i)
+                    .customer("Fulano " + i)
+                    .customerEmail("fulano" + i + "@email.com")
+                    .loanDate(LocalDate.now())
+                    .book(book)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public BookDTO bookToDtoModelMapper() {
+        return modelMapper.map(book, BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO bookToDtoMapper() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book dtoToBookModelMapper() {
+        return modelMapper.map(bookDTO, Book.class);
+    }
+
+    @Benchmark
+    public Book dtoToBookMapper() {
+        return bookMapper.toEntity(bookDTO);
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageModelMapper() {
+        return loans.stream()
+                .map(entity -> {
+                    BookDTO dto = modelMapper.map(entity.getBook(), BookDTO.class);
+                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
+                    loanDTO.setBook(dto);
+                    return loanDTO;
+                }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageMapper() {
+        return loans.stream()
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.LibraryApiApplication;
+import br.com.libraryapi.api.services.EmailService;
+import br.com.libraryapi.api.services.MailTransport;
+import br.com.libraryapi.api.services.impl.OutboxDispatcher;
+import br.com.libraryapi.model.repositories.OutboxMessageRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class OutboxBenchmark {
+    private static final long SEND_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Param({"1", "2", "4", "8"})
+    int workers;
+
+    @Param({"5000"})
+    int messages;
+
+    ConfigurableApplicationContext context;
+    OutboxDispatcher dispatcher;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(context -> ((GenericApplicationContext) context).registerBean(MailTransport.class,
+                        () -> (message, recipients) -> LockSupport.parkNanos(SEND_LATENCY_NANOS),
+                        definition -> definition.setPrimary(true)))
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:outbox-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "application.outbox.enabled=false",
+                        "application.outbox.batch-size=100")
+                .run();
+        dispatcher = context.getBean(OutboxDispatcher.class);
+        executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @Setup(Level.Invocation)
+    public void enqueue() {
+        List<String> recipients = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            recipients.add("customer" + i + "@email.com");
+        }
+        context.getBean(OutboxMessageRepository.class).deleteAllInBatch();
+        context.getBean(EmailService.class).sendMails("Benchmark", recipients);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public long drain() throws Exception {
+        List<Future<Long>> results = new ArrayList<>(workers);
+        for (int partition = 0; partition < workers; partition++) {
+            final int workerPartition = partition;
+            results.add(executor.submit(() -> {
+                long dispatched = 0;
+                int batch;
+                while ((batch = dispatcher.dispatchBatch(workerPartition, workers)) > 0) {
+                    dispatched += batch;
+                }
+                return dispatched;
+            }));
+        }
+        long dispatched = 0;
+        for (Future<Long> result : results) {
+            dispatched += result.get();
+        }
+        return dispatched;
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.LibraryApiApplication;
+import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class SecondLevelCacheBenchmark {
+
+    @Param({"true", "false"})
+    boolean cache;
+
+    @Param({"1000"})
+    int books;
+
+    @Param({"5"})
+    int loansPerBook;
+
+    ConfigurableApplicationContext context;
+    BookRepository bookRepository;
+    LoanRepository loanRepository;
+    LoanService loanService;
+    Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:cache-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.generate_statistics=true")
+                .run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cache,
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cache);
+
+        new CatalogSeeder(context.getBean(JdbcTemplate.class)).seed(books, loansPerBook);
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+        loanService = context.getBean(LoanService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RoundTrips {
+        public long statements;
+        public long requests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            requests = 0;
+        }
+    }
+
+    @Benchmark
+    public PageImpl<Loan> loansByBook(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        Pageable pageable = PageRequest.of(0, 10);
+        Book book = bookRepository.findById(randomBookId()).orElseThrow(IllegalStateException::new);
+        Slice<Loan> loans = loanService.getLoanSliceByBook(book, pageable);
+        PageImpl<Loan> page = new PageImpl<>(loans.getContent(), pageable, loanRepository.countByBook(book));
+        roundTrips.statements += statistics.getPrepareStatementCount() - before;
+        roundTrips.requests++;
+        return page;
+    }
+
+    @Benchmark
+    public Book bookByIsbn(RoundTrips roundTrips) {
+        long before = statistics.getPrepareStatementCount();
+        Book book = bookRepository.findByIsbn(CatalogSeeder.isbn(randomBookId())).orElseThrow(IllegalStateException::new);
+        roundTrips.statements += statistics.getPrepareStatementCount() - before;
+        roundTrips.requests++;
+        return book;
+    }
+
+    private long randomBookId() {
+        return ThreadLocalRandom.current().nextLong(books) + 1;
+    }
+}
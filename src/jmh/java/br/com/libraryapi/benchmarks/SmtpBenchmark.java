@@ -0,0 +1,75 @@
+package br.com.libraryapi.benchmarks;
+
+import br.com.libraryapi.api.services.impl.SmtpMailTransport;
+import br.com.libraryapi.support.FakeSmtpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+public class SmtpBenchmark {
+    private static final int RECIPIENTS = 100_000;
+    private static final int OUTBOX_BATCH = 100;
+
+    @Param({"true", "false"})
+    boolean pipelining;
+
+    @Param({"1", "4"})
+    int poolSize;
+
+    @Param({"200"})
+    long roundTripMicros;
+
+    FakeSmtpServer server;
+    SmtpMailTransport transport;
+    ExecutorService executor;
+    List<List<String>> batches;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new FakeSmtpServer(pipelining, roundTripMicros, false);
+        transport = new SmtpMailTransport("localhost", server.getPort(), "library.bench", false, "", "",
+                "biblioteca@email.com", "Empréstimos", poolSize, 100, 0,
+                Duration.ofSeconds(5), Duration.ofSeconds(30));
+        executor = Executors.newFixedThreadPool(poolSize);
+        batches = new ArrayList<>();
+        for (int start = 0; start < RECIPIENTS; start += OUTBOX_BATCH) {
+            List<String> batch = new ArrayList<>(OUTBOX_BATCH);
+            for (int i = start; i < start + OUTBOX_BATCH; i++) {
+                batch.add("customer" + i + "@email.com");
+            }
+            batches.add(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        transport.close();
+        server.close();
+    }
+
+    @Benchmark
+    public long send100kRecipients() throws Exception {
+        List<Future<?>> sends = new ArrayList<>(batches.size());
+        for (List<String> batch : batches) {
+            sends.add(executor.submit(() -> transport.send("Empréstimo atrasado", batch)));
+        }
+        for (Future<?> send : sends) {
+            send.get();
+        }
+        return server.getRecipients();
+    }
+}
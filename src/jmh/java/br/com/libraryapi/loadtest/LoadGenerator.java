@@ -0,0 +1,110 @@
+package br.com.libraryapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Workload workload;
+    private final double rate;
+    private final int maxInFlight;
+    private final Random random;
+    private final Operation[] schedule;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Operation, Result> results = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(Workload workload, LoadTestConfig config, Random random) {
+        this.workload = workload;
+        this.rate = config.getRate();
+        this.maxInFlight = config.getMaxInFlight();
+        this.random = random;
+        this.schedule = schedule(config.getMix());
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new Result());
+        }
+    }
+
+    public Map<Operation, Result> run(Duration duration) {
+        results.values().forEach(Result::reset);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = workload.resolve(schedule[random.nextInt(schedule.length)]);
+            Result result = results.get(operation);
+            if (inFlight.get() >= maxInFlight) {
+                result.dropped.incrementAndGet();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long intendedStart = intended;
+            workload.send(operation, random).whenComplete((status, error) -> {
+                result.record(System.nanoTime() - intendedStart, error == null && status < 400);
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return results;
+    }
+
+    private static Operation[] schedule(Map<Operation, Integer> mix) {
+        Operation[] schedule = new Operation[mix.values().stream().mapToInt(Integer::intValue).sum()];
+        int slot = 0;
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            for (int i = 0; i < weight.getValue(); i++) {
+                schedule[slot++] = weight.getKey();
+            }
+        }
+        return schedule;
+    }
+
+    public static class Result {
+        private final Histogram latencyMicros = new ConcurrentHistogram(3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        void record(long latencyNanos, boolean success) {
+            latencyMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        void reset() {
+            latencyMicros.reset();
+            errors.set(0);
+            dropped.set(0);
+        }
+
+        public Histogram getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public long getRequests() {
+            return latencyMicros.getTotalCount() + dropped.get();
+        }
+
+        public long getErrors() {
+            return errors.get() + dropped.get();
+        }
+    }
+}
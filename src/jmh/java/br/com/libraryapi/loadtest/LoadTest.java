@@ -0,0 +1,135 @@
+package br.com.libraryapi.loadtest;
+
+import br.com.libraryapi.LibraryApiApplication;
+import br.com.libraryapi.api.services.ActiveLoanIndex;
+import br.com.libraryapi.api.services.BookSearchIndex;
+import br.com.libraryapi.api.services.IsbnFilter;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import br.com.libraryapi.benchmarks.CatalogSeeder;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LoadTest {
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    public static void main(String[] args) throws IOException {
+        LoadTestConfig config = new LoadTestConfig(System.getProperties());
+        Path reportDir = Paths.get(args.length > 0 ? args[0] : "build/reports/loadtest");
+
+        ConfigurableApplicationContext context = start(config);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<String> violations;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Random random = new Random(config.getSeed());
+            Workload workload = new Workload("http://localhost:" + port, config.getBooks(), config.getLoansPerBook() > 0,
+                    random, executor);
+            LoadGenerator generator = new LoadGenerator(workload, config, random);
+
+            System.out.printf("Warming up for %s at %.0f req/s%n", config.getWarmup(), config.getRate());
+            generator.run(config.getWarmup());
+            System.out.printf("Measuring for %s at %.0f req/s%n", config.getDuration(), config.getRate());
+            violations = report(config, generator.run(config.getDuration()), reportDir);
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+
+        if (!violations.isEmpty()) {
+            violations.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestConfig config) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:library-loadtest;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false")
+                .run();
+
+        new CatalogSeeder(context.getBean(JdbcTemplate.class)).seed(config.getBooks(), config.getLoansPerBook());
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(IsbnFilter.class).rebuild();
+        context.getBean(ActiveLoanIndex.class).rebuild();
+        context.getBean(OverdueLoanTracker.class).rebuild();
+        return context;
+    }
+
+    private static List<String> report(LoadTestConfig config, Map<Operation, LoadGenerator.Result> results,
+                                       Path reportDir) throws IOException {
+        Files.createDirectories(reportDir);
+        List<String> violations = new ArrayList<>();
+        double seconds = config.getDuration().toMillis() / 1000.0;
+
+        try (PrintStream summary = new PrintStream(Files.newOutputStream(reportDir.resolve("summary.txt")), true, "UTF-8")) {
+            String header = String.format("%-24s %9s %9s %8s %9s %9s %9s %9s",
+                    "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            summary.println(header);
+            System.out.println(header);
+
+            for (Map.Entry<Operation, LoadGenerator.Result> entry : results.entrySet()) {
+                Operation operation = entry.getKey();
+                LoadGenerator.Result result = entry.getValue();
+                if (result.getRequests() == 0) {
+                    continue;
+                }
+                Histogram histogram = result.getLatencyMicros();
+                double[] percentiles = {
+                        millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9))
+                };
+
+                String line = String.format("%-24s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f",
+                        operation.endpoint(), result.getRequests(), result.getRequests() / seconds, result.getErrors(),
+                        percentiles[0], percentiles[1], percentiles[2], millis(histogram.getMaxValue()));
+                summary.println(line);
+                System.out.println(line);
+
+                try (PrintStream distribution = new PrintStream(
+                        Files.newOutputStream(reportDir.resolve(operation.key() + ".hgrm")), true, "UTF-8")) {
+                    histogram.outputPercentileDistribution(distribution, MICROS_PER_MILLI);
+                }
+
+                for (int i = 0; i < percentiles.length; i++) {
+                    String percentile = LoadTestConfig.PERCENTILES[i];
+                    double budget = config.getBudgetMillis(operation, percentile);
+                    if (percentiles[i] > budget) {
+                        violations.add(String.format("%s %s latency %.2f ms exceeds the budget of %.2f ms",
+                                operation.endpoint(), percentile, percentiles[i], budget));
+                    }
+                }
+                double errorRate = (double) result.getErrors() / result.getRequests();
+                if (errorRate > config.getMaxErrorRate()) {
+                    violations.add(String.format("%s error rate %.4f exceeds the budget of %.4f",
+                            operation.endpoint(), errorRate, config.getMaxErrorRate()));
+                }
+            }
+        }
+        System.out.println("Latency distributions written to " + reportDir.toAbsolutePath());
+        return violations;
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.libraryapi.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class LoadTestConfig {
+    static final String PREFIX = "loadtest.";
+    static final String[] PERCENTILES = {"p50", "p99", "p999"};
+
+    private final Properties properties;
+
+    public LoadTestConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    public double getRate() {
+        return Double.parseDouble(get("rate", "100"));
+    }
+
+    public Duration getWarmup() {
+        return Duration.parse(get("warmup", "PT10S"));
+    }
+
+    public Duration getDuration() {
+        return Duration.parse(get("duration", "PT60S"));
+    }
+
+    public int getBooks() {
+        return Integer.parseInt(get("books", "10000"));
+    }
+
+    public int getLoansPerBook() {
+        return Integer.parseInt(get("loans-per-book", "1"));
+    }
+
+    public long getSeed() {
+        return Long.parseLong(get("seed", "42"));
+    }
+
+    public int getMaxInFlight() {
+        return Integer.parseInt(get("max-in-flight", "512"));
+    }
+
+    public double getMaxErrorRate() {
+        return Double.parseDouble(get("max-error-rate", "0.01"));
+    }
+
+    public Map<Operation, Integer> getMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : get("mix", "lookup:40,search:20,create:10,loan:15,return:15").split(",")) {
+            String[] weight = entry.trim().split(":");
+            mix.put(Operation.of(weight[0]), Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+
+    public double getBudgetMillis(Operation operation, String percentile) {
+        String fallback = get("budget." + percentile, defaultBudget(percentile));
+        return Double.parseDouble(get("budget." + operation.key() + "." + percentile, fallback));
+    }
+
+    private String defaultBudget(String percentile) {
+        switch (percentile) {
+            case "p50":
+                return "25";
+            case "p99":
+                return "250";
+            default:
+                return "1000";
+        }
+    }
+
+    private String get(String key, String defaultValue) {
+        return properties.getProperty(PREFIX + key, defaultValue);
+    }
+}
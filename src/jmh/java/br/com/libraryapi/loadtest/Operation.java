@@ -0,0 +1,29 @@
+package br.com.libraryapi.loadtest;
+
+import java.util.Locale;
+
+public enum Operation {
+    LOOKUP("GET /api/books/{id}"),
+    SEARCH("GET /api/books?title"),
+    CREATE("POST /api/books"),
+    LOAN("POST /api/loans"),
+    RETURN("PATCH /api/loans/{id}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Operation of(String key) {
+        return valueOf(key.trim().toUpperCase(Locale.ROOT));
+    }
+}
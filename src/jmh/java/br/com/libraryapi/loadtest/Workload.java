@@ -0,0 +1,146 @@
+package br.com.libraryapi.loadtest;
+
+import br.com.libraryapi.benchmarks.CatalogSeeder;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Workload {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int books;
+    private final AtomicLong nextIsbn;
+    private final ConcurrentLinkedQueue<Long> availableBooks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<long[]> openLoans = new ConcurrentLinkedQueue<>();
+
+    public Workload(String baseUrl, int books, boolean seededLoans, Random random, Executor executor) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .executor(executor)
+                .build();
+        this.baseUrl = baseUrl;
+        this.books = books;
+        this.nextIsbn = new AtomicLong(books + 1L);
+
+        List<Long> available = new ArrayList<>(books);
+        for (long id = 1; id <= books; id++) {
+            if (!seededLoans || !CatalogSeeder.isActive(id)) {
+                available.add(id);
+            }
+        }
+        Collections.shuffle(available, random);
+        availableBooks.addAll(available);
+    }
+
+    public Operation resolve(Operation operation) {
+        if (operation == Operation.LOAN && availableBooks.isEmpty()) {
+            return Operation.RETURN;
+        }
+        if (operation == Operation.RETURN && openLoans.isEmpty()) {
+            return Operation.LOAN;
+        }
+        return operation;
+    }
+
+    public CompletableFuture<Integer> send(Operation operation, Random random) {
+        switch (operation) {
+            case LOOKUP:
+                return send(get("/api/books/" + randomBookId(random)));
+            case SEARCH:
+                return send(get("/api/books?size=20&title=" + encode(CatalogSeeder.title(randomBookId(random)))));
+            case CREATE:
+                return send(post("/api/books", book(nextIsbn.getAndIncrement())));
+            case LOAN:
+                return loan(random);
+            case RETURN:
+                return giveBack();
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private CompletableFuture<Integer> loan(Random random) {
+        Long bookId = availableBooks.poll();
+        if (bookId == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No available book to loan"));
+        }
+        long customer = random.nextInt(100_000);
+        String body = String.format("{\"isbn\":\"%s\",\"customer\":\"%s\",\"email\":\"customer%d@email.com\"}",
+                CatalogSeeder.isbn(bookId), CatalogSeeder.customer(customer), customer);
+
+        return client.sendAsync(post("/api/loans", body), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    if (error == null && response.statusCode() == 201) {
+                        openLoans.add(new long[]{Long.parseLong(response.body().trim()), bookId});
+                    } else {
+                        availableBooks.add(bookId);
+                    }
+                })
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private CompletableFuture<Integer> giveBack() {
+        long[] loan = openLoans.poll();
+        if (loan == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No open loan to return"));
+        }
+        HttpRequest request = request("/api/loans/" + loan[0])
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"returned\":true}"))
+                .header("Content-Type", "application/json")
+                .build();
+
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> availableBooks.add(loan[1]))
+                .thenApply(HttpResponse::statusCode);
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json");
+    }
+
+    private String book(long id) {
+        return String.format("{\"title\":\"%s\",\"author\":\"Author %d\",\"isbn\":\"%s\"}",
+                CatalogSeeder.title(id), id % 1_000, CatalogSeeder.isbn(id));
+    }
+
+    private long randomBookId(Random random) {
+        return random.nextInt(books) + 1L;
+    }
+
+    private String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
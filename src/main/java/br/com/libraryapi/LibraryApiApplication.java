@@ -1,6 +1,7 @@
 package br.com.libraryapi;
 
-import org.modelmapper.ModelMapper;
+import br.com.libraryapi.api.mappers.BookMapper;
+import br.com.libraryapi.api.mappers.LoanMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -11,8 +12,13 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class LibraryApiApplication {
 
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return new BookMapper();
+	}
+
+	@Bean
+	public LoanMapper loanMapper(BookMapper bookMapper) {
+		return new LoanMapper(bookMapper);
 	}
 
 	public static void main(String[] args) {
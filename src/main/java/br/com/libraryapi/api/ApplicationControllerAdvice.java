@@ -2,6 +2,9 @@ package br.com.libraryapi.api;
 
 import br.com.libraryapi.api.exceptions.ApiErrors;
 import br.com.libraryapi.exceptions.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -13,6 +16,11 @@ import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
+    private final Counter notFound;
+
+    public ApplicationControllerAdvice(MeterRegistry meterRegistry) {
+        this.notFound = Counter.builder("library.not.found").register(meterRegistry);
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -27,8 +35,17 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(e);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return new ApiErrors(new BusinessException("Resource was modified concurrently"));
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex) {
+        if (ex.getStatus() == HttpStatus.NOT_FOUND) {
+            notFound.increment();
+        }
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
     }
 }
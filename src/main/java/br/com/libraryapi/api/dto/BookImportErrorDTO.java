@@ -0,0 +1,14 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BookImportErrorDTO {
+    private long line;
+    private String isbn;
+    private List<String> errors;
+}
@@ -0,0 +1,14 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BookImportReportDTO {
+    private long imported;
+    private long rejected;
+    private List<BookImportErrorDTO> errors;
+}
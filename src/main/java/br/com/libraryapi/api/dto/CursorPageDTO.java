@@ -0,0 +1,28 @@
+package br.com.libraryapi.api.dto;
+
+import br.com.libraryapi.model.repositories.Keyset;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private int size;
+    private String nextCursor;
+
+    public static <E, T> CursorPageDTO<T> of(Slice<E> slice, Keyset keyset, Function<E, T> mapper) {
+        List<E> entities = slice.getContent();
+        List<T> content = entities.stream().map(mapper).collect(Collectors.toList());
+        String nextCursor = slice.hasNext()
+                ? keyset.next(entities.get(entities.size() - 1)).encode()
+                : null;
+
+        return new CursorPageDTO<>(content, content.size(), nextCursor);
+    }
+}
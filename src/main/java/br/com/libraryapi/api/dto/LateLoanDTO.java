@@ -0,0 +1,17 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class LateLoanDTO {
+    private Long id;
+    private String customer;
+    private String email;
+    private LocalDate loanDate;
+    private String title;
+    private String isbn;
+}
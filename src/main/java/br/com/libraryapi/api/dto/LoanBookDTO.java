@@ -0,0 +1,12 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LoanBookDTO {
+    private Long id;
+    private Long bookId;
+    private String isbn;
+}
@@ -0,0 +1,20 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class LoanExportDTO {
+    private Long id;
+    private String customer;
+    private String email;
+    private LocalDate loanDate;
+    private Boolean returned;
+    private Long bookId;
+    private String isbn;
+    private String title;
+    private String author;
+}
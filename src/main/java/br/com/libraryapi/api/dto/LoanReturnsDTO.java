@@ -0,0 +1,24 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanReturnsDTO {
+    @Builder.Default
+    @Size(max = 1000)
+    private List<Long> ids = new ArrayList<>();
+
+    @Builder.Default
+    @Size(max = 1000)
+    private List<String> isbns = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LoanReturnsReportDTO {
+    private long returned;
+    private List<Long> unmatchedIds;
+    private List<String> unmatchedIsbns;
+}
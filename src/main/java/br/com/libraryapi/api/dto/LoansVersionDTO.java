@@ -0,0 +1,12 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LoansVersionDTO {
+    private long count;
+    private long versionSum;
+    private long maxId;
+}
@@ -0,0 +1,13 @@
+package br.com.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@AllArgsConstructor
+public class OpenLoanDTO {
+    private Long id;
+    private LocalDate loanDate;
+}
@@ -0,0 +1,34 @@
+package br.com.libraryapi.api.mappers;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.api.dto.ReturnedLoanDTO;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+
+public class LoanMapper {
+    private final BookMapper bookMapper;
+
+    public LoanMapper(BookMapper bookMapper) {
+        this.bookMapper = bookMapper;
+    }
+
+    public LoanDTO toDto(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        Book book = loan.getBook();
+        BookDTO bookDTO = bookMapper.toDto(book);
+
+        return new LoanDTO(
+                loan.getId(),
+                book != null ? book.getIsbn() : null,
+                loan.getCustomer(),
+                loan.getCustomerEmail(),
+                bookDTO);
+    }
+
+    public void applyReturned(ReturnedLoanDTO dto, Loan loan) {
+        loan.setReturned(dto.getReturned());
+    }
+}
@@ -1,64 +1,119 @@
 package br.com.libraryapi.api.resources;
 
 import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.BookImportReportDTO;
+import br.com.libraryapi.api.dto.CursorPageDTO;
 import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
+import br.com.libraryapi.api.mappers.BookMapper;
+import br.com.libraryapi.api.mappers.LoanMapper;
+import br.com.libraryapi.api.services.BookImportService;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.ExportService;
 import br.com.libraryapi.api.services.LoanService;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
-import org.modelmapper.ModelMapper;
+import br.com.libraryapi.model.repositories.Keyset;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
-    private final ModelMapper modelMapper;
     private final BookService bookService;
     private final LoanService loanService;
-
-    public BookController(BookService bookService, LoanService loanService, ModelMapper modelMapper) {
+    private final BookMapper bookMapper;
+    private final LoanMapper loanMapper;
+    private final BookImportService bookImportService;
+    private final ExportService exportService;
+    private final long exportTimeout;
+
+    public BookController(BookService bookService, LoanService loanService, BookMapper bookMapper, LoanMapper loanMapper,
+                          BookImportService bookImportService, ExportService exportService,
+                          @Value("${application.export.async-timeout:-1}") long exportTimeout) {
         this.bookService = bookService;
         this.loanService = loanService;
-        this.modelMapper = modelMapper;
+        this.bookMapper = bookMapper;
+        this.loanMapper = loanMapper;
+        this.bookImportService = bookImportService;
+        this.exportService = exportService;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookDTO create(@RequestBody @Valid BookDTO dto) {
-        Book book = modelMapper.map(dto, Book.class);
+        Book book = bookMapper.toEntity(dto);
         book = bookService.save(book);
 
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDto(book);
+    }
+
+    @PostMapping(value = "bulk", consumes = "application/x-ndjson")
+    public BookImportReportDTO bulkNdjson(InputStream body) throws IOException {
+        return bookImportService.importNdjson(body);
+    }
+
+    @PostMapping(value = "bulk", consumes = "text/csv")
+    public BookImportReportDTO bulkCsv(InputStream body) throws IOException {
+        return bookImportService.importCsv(body);
+    }
+
+    @GetMapping(value = "export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportNdjson(HttpServletResponse response) {
+        return Exports.stream(exportTimeout, response, "application/x-ndjson",
+                output -> exportService.exportBooks(ExportService.Format.NDJSON, output));
+    }
+
+    @GetMapping(value = "export", produces = "text/csv")
+    public WebAsyncTask<Void> exportCsv(HttpServletResponse response) {
+        return Exports.stream(exportTimeout, response, "text/csv",
+                output -> exportService.exportBooks(ExportService.Format.CSV, output));
     }
 
     @GetMapping("{id}")
-    public BookDTO get(@PathVariable Long id) {
-        Optional<Book> book = bookService.getById(id);
-        return book
-                .map(value -> modelMapper.map(value, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public ResponseEntity<BookDTO> get(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            String current = bookETag(id);
+            if (ETags.notModified(ifNoneMatch, current)) {
+                return notModified(current);
+            }
+        }
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        return ResponseEntity.ok().eTag(ETags.of(book.getVersion())).body(bookMapper.toDto(book));
     }
 
     @PutMapping("{id}")
-    public BookDTO update(@PathVariable Long id, @Valid @RequestBody BookDTO dto) {
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @Valid @RequestBody BookDTO dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (ifMatch != null && !ETags.matches(ifMatch, ETags.of(book.getVersion()))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified");
+        }
         book.setAuthor(dto.getAuthor());
         book.setTitle(dto.getTitle());
 
         book = bookService.update(book);
 
-        return modelMapper.map(book, BookDTO.class);
-
+        return ResponseEntity.ok().eTag(ETags.of(book.getVersion())).body(bookMapper.toDto(book));
     }
 
     @DeleteMapping("{id}")
@@ -70,32 +125,114 @@ public class BookController {
 
     @GetMapping
     public Page<BookDTO> find(BookDTO dto, Pageable pageable) {
-        Book filter = modelMapper.map(dto, Book.class);
+        Book filter = bookMapper.toEntity(dto);
         Page<Book> result = bookService.find(filter, pageable);
 
         List<BookDTO> books = result.getContent().stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
+                .map(bookMapper::toDto)
                 .collect(Collectors.toList()) ;
 
-        return new PageImpl<BookDTO>(books, pageable, books.size());
+        return new PageImpl<BookDTO>(books, pageable, result.getTotalElements());
+    }
+
+    @GetMapping(params = {"count=false", "!cursor"})
+    public Slice<BookDTO> findSlice(BookDTO dto, Pageable pageable) {
+        return bookService.findSlice(bookMapper.toEntity(dto), pageable).map(bookMapper::toDto);
+    }
+
+    @GetMapping(params = "cursor")
+    public CursorPageDTO<BookDTO> findByCursor(BookDTO dto, @RequestParam(required = false) String cursor, Pageable pageable) {
+        Keyset keyset = Keyset.of(cursor, pageable.getSort());
+        Slice<Book> result = bookService.findAfter(bookMapper.toEntity(dto), keyset, pageable.getPageSize());
+
+        return CursorPageDTO.of(result, keyset, bookMapper::toDto);
     }
 
     @GetMapping("{id}/loans")
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable) {
+    public ResponseEntity<Page<LoanDTO>> loansByBook(@PathVariable Long id, Pageable pageable,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ifNoneMatch == null ? null : loansETag(id);
+        if (ETags.notModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
         Page<Loan> loans = loanService.getLoansByBook(book, pageable);
+        if (etag == null && loans.getTotalElements() == loans.getNumberOfElements()) {
+            etag = loansETag(book, loans.getContent());
+        }
 
         List<LoanDTO> loanDTOS = loans.getContent().stream()
-                .map(loan -> {
-                    Book book1 = loan.getBook();
-                    BookDTO bookDTO = modelMapper.map(book1, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
-                }).collect(Collectors.toList()) ;
-
-        return new PageImpl<LoanDTO>(loanDTOS, pageable, loans.getTotalElements());
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList()) ;
+
+        return withETag(etag, new PageImpl<LoanDTO>(loanDTOS, pageable, loans.getTotalElements()));
+    }
+
+    @GetMapping(value = "{id}/loans", params = {"count=false", "!cursor"})
+    public ResponseEntity<Slice<LoanDTO>> loanSliceByBook(@PathVariable Long id, Pageable pageable,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ifNoneMatch == null ? null : loansETag(id);
+        if (ETags.notModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        Slice<Loan> loans = loanService.getLoanSliceByBook(book, pageable);
+        if (etag == null && loans.isFirst() && !loans.hasNext()) {
+            etag = loansETag(book, loans.getContent());
+        }
+
+        return withETag(etag, loans.map(loanMapper::toDto));
+    }
+
+    @GetMapping(value = "{id}/loans", params = "cursor")
+    public ResponseEntity<CursorPageDTO<LoanDTO>> loansByBookByCursor(@PathVariable Long id, @RequestParam(required = false) String cursor,
+                                                                      Pageable pageable,
+                                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = ifNoneMatch == null ? null : loansETag(id);
+        if (ETags.notModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        Book book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        Keyset keyset = Keyset.of(cursor, pageable.getSort());
+        Slice<Loan> loans = loanService.getLoansByBookAfter(book, keyset, pageable.getPageSize());
+        if (etag == null && (cursor == null || cursor.isEmpty()) && !loans.hasNext()) {
+            etag = loansETag(book, loans.getContent());
+        }
+
+        return withETag(etag, CursorPageDTO.of(loans, keyset, loanMapper::toDto));
+    }
+
+    private String bookETag(Long id) {
+        return bookService.getVersion(id)
+                .map(ETags::of)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    private String loansETag(Long id) {
+        Long bookVersion = bookService.getVersion(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        LoansVersionDTO loans = loanService.getLoansVersionByBook(id);
+
+        return ETags.of(bookVersion, loans.getCount(), loans.getVersionSum(), loans.getMaxId());
+    }
+
+    /**
+     * Same validator as {@link #loansETag(Long)}, computed from a response that already holds every loan of the book,
+     * so unconditional requests get an ETag without the aggregate query.
+     */
+    private String loansETag(Book book, List<Loan> loans) {
+        return ETags.of(book.getVersion(), loans.size(), loans.stream().mapToLong(Loan::getVersion).sum(),
+                loans.stream().mapToLong(Loan::getId).max().orElse(0));
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    private <T> ResponseEntity<T> withETag(String etag, T body) {
+        return etag == null ? ResponseEntity.ok().body(body) : ResponseEntity.ok().eTag(etag).body(body);
     }
 
 }
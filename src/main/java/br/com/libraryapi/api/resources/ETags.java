@@ -0,0 +1,29 @@
+package br.com.libraryapi.api.resources;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+final class ETags {
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETags() {
+    }
+
+    static String of(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    static boolean matches(String ifMatch, String etag) {
+        return Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidate -> ANY.equals(candidate) || candidate.equals(etag));
+    }
+
+    static boolean notModified(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(candidate -> candidate.startsWith(WEAK_PREFIX) ? candidate.substring(WEAK_PREFIX.length()) : candidate)
+                .anyMatch(candidate -> ANY.equals(candidate) || candidate.equals(etag));
+    }
+}
@@ -1,22 +1,31 @@
 package br.com.libraryapi.api.resources;
 
-import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.CursorPageDTO;
 import br.com.libraryapi.api.dto.LoanDTO;
 import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.dto.LoanReturnsDTO;
+import br.com.libraryapi.api.dto.LoanReturnsReportDTO;
 import br.com.libraryapi.api.dto.ReturnedLoanDTO;
+import br.com.libraryapi.api.mappers.LoanMapper;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.ExportService;
 import br.com.libraryapi.api.services.LoanService;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
-import org.modelmapper.ModelMapper;
+import br.com.libraryapi.model.repositories.Keyset;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,12 +35,17 @@ import java.util.stream.Collectors;
 public class LoanController {
     private final BookService bookService;
     private final LoanService loanService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
+    private final ExportService exportService;
+    private final long exportTimeout;
 
-    public LoanController(BookService bookService, LoanService loanService, ModelMapper modelMapper) {
+    public LoanController(BookService bookService, LoanService loanService, LoanMapper loanMapper, ExportService exportService,
+                          @Value("${application.export.async-timeout:-1}") long exportTimeout) {
         this.bookService = bookService;
         this.loanService = loanService;
-        this.modelMapper = modelMapper;
+        this.loanMapper = loanMapper;
+        this.exportService = exportService;
+        this.exportTimeout = exportTimeout;
     }
 
     @PostMapping
@@ -53,10 +67,34 @@ public class LoanController {
         return loan.getId();
     }
 
+    @GetMapping(value = "export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportNdjson(HttpServletResponse response) {
+        return Exports.stream(exportTimeout, response, "application/x-ndjson",
+                output -> exportService.exportLoans(ExportService.Format.NDJSON, output));
+    }
+
+    @GetMapping(value = "export", produces = "text/csv")
+    public WebAsyncTask<Void> exportCsv(HttpServletResponse response) {
+        return Exports.stream(exportTimeout, response, "text/csv",
+                output -> exportService.exportLoans(ExportService.Format.CSV, output));
+    }
+
+    @PatchMapping("returns")
+    public LoanReturnsReportDTO returnAll(@RequestBody @Valid LoanReturnsDTO dto) {
+        return loanService.returnAll(dto.getIds(), dto.getIsbns());
+    }
+
     @PatchMapping("{id}")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        if (Boolean.TRUE.equals(dto.getReturned())) {
+            if (loanService.returnLoan(id) == LoanService.ReturnResult.NOT_FOUND) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            return;
+        }
+
         Loan loan = loanService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
+        loanMapper.applyReturned(dto, loan);
 
         loanService.update(loan);
     }
@@ -66,16 +104,22 @@ public class LoanController {
         Page<Loan> loans = loanService.find(dto, pageable);
 
         List<LoanDTO> dtos = loans.getContent().stream()
-                .map(entity -> {
-                    Book book = entity.getBook();
+                .map(loanMapper::toDto)
+                .collect(Collectors.toList());
+
+        return new PageImpl<LoanDTO>(dtos, pageable, loans.getTotalElements());
+    }
 
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
+    @GetMapping(params = {"count=false", "!cursor"})
+    public Slice<LoanDTO> findSlice(LoanFilterDTO dto, Pageable pageable) {
+        return loanService.findSlice(dto, pageable).map(loanMapper::toDto);
+    }
 
-                    return loanDTO;
-                }).collect(Collectors.toList());
+    @GetMapping(params = "cursor")
+    public CursorPageDTO<LoanDTO> findByCursor(LoanFilterDTO dto, @RequestParam(required = false) String cursor, Pageable pageable) {
+        Keyset keyset = Keyset.of(cursor, pageable.getSort());
+        Slice<Loan> loans = loanService.findAfter(dto, keyset, pageable.getPageSize());
 
-        return new PageImpl<LoanDTO>(dtos, pageable, loans.getTotalElements());
+        return CursorPageDTO.of(loans, keyset, loanMapper::toDto);
     }
 }
@@ -0,0 +1,11 @@
+package br.com.libraryapi.api.services;
+
+public interface ActiveLoanIndex {
+    void rebuild();
+
+    boolean isLoaned(long bookId);
+
+    boolean markLoaned(long bookId);
+
+    void markReturned(long bookId);
+}
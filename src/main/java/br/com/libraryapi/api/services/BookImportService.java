@@ -0,0 +1,12 @@
+package br.com.libraryapi.api.services;
+
+import br.com.libraryapi.api.dto.BookImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportReportDTO importNdjson(InputStream input) throws IOException;
+
+    BookImportReportDTO importCsv(InputStream input) throws IOException;
+}
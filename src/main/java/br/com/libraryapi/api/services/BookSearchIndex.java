@@ -0,0 +1,21 @@
+package br.com.libraryapi.api.services;
+
+import br.com.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+public interface BookSearchIndex {
+    void rebuild();
+
+    void index(Book book);
+
+    void remove(Long id);
+
+    /**
+     * Answers the filter from the index, or returns empty when the index is disabled, over its size cap, or the
+     * filter has no value long enough to narrow the candidates. Callers fall back to the database in that case.
+     */
+    Optional<Page<Book>> search(Book filter, Pageable pageable);
+}
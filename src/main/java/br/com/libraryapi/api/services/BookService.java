@@ -1,23 +1,38 @@
 package br.com.libraryapi.api.services;
 
 import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.repositories.Keyset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public interface BookService {
     Book save(Book book);
 
+    List<Book> saveAll(List<Book> books);
+
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
     Optional<Book> getById(Long id);
 
+    Optional<Long> getVersion(Long id);
+
     void delete(Book book);
 
     Book update(Book book);
 
     Page<Book> find(Book filter, Pageable request);
 
+    Slice<Book> findSlice(Book filter, Pageable request);
+
+    Slice<Book> findAfter(Book filter, Keyset keyset, int size);
+
     Optional<Book> getBookByIsbn(String isbn);
 }
@@ -1,7 +1,10 @@
 package br.com.libraryapi.api.services;
 
 import java.util.List;
+import java.util.Map;
 
 public interface EmailService {
     void sendMails(String message, List<String> mails);
+
+    void sendMails(Map<String, String> messagesByMail);
 }
@@ -0,0 +1,12 @@
+package br.com.libraryapi.api.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+    enum Format { NDJSON, CSV }
+
+    void exportBooks(Format format, OutputStream output) throws IOException;
+
+    void exportLoans(Format format, OutputStream output) throws IOException;
+}
@@ -0,0 +1,11 @@
+package br.com.libraryapi.api.services;
+
+public interface IsbnFilter {
+    void rebuild();
+
+    boolean mightExist(String isbn);
+
+    void add(String isbn);
+
+    void remove(String isbn);
+}
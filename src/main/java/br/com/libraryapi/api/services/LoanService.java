@@ -1,26 +1,53 @@
 package br.com.libraryapi.api.services;
 
+import br.com.libraryapi.api.dto.LateLoanDTO;
 import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.dto.LoanReturnsReportDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.Keyset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public interface LoanService {
+    enum ReturnResult { RETURNED, ALREADY_RETURNED, NOT_FOUND }
+
     Loan save(Loan loan);
 
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    ReturnResult returnLoan(Long id);
+
+    LoanReturnsReportDTO returnAll(Collection<Long> ids, Collection<String> isbns);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable page);
 
+    Slice<Loan> findSlice(LoanFilterDTO filter, Pageable page);
+
+    Slice<Loan> findAfter(LoanFilterDTO filter, Keyset keyset, int size);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
-    List<Loan> getAllLateLoans();
+    Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable);
+
+    Slice<Loan> getLoansByBookAfter(Book book, Keyset keyset, int size);
+
+    LoansVersionDTO getLoansVersionByBook(Long bookId);
+
+    List<LateLoanDTO> getLateLoansOf(LocalDate today, Collection<String> emails);
+
+    long countLateLoans(LocalDate today);
+
+    List<String> getCustomersWithOpenLoansIn(Collection<Long> ids);
 }
@@ -0,0 +1,7 @@
+package br.com.libraryapi.api.services;
+
+import java.util.List;
+
+public interface MailTransport {
+    void send(String message, List<String> recipients);
+}
@@ -0,0 +1,27 @@
+package br.com.libraryapi.api.services;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Due dates of the open loans, held in this JVM only (roughly one map entry per open loan). Every instance loads
+ * the full queue and would send the same digests, so run the overdue job on a single node and set
+ * application.mail.lateloans.enabled=false on the others.
+ */
+public interface OverdueLoanTracker {
+    void rebuild();
+
+    void track(long loanId, LocalDate loanDate);
+
+    void untrack(long loanId);
+
+    void remindOn(Collection<Long> loanIds, LocalDate day);
+
+    List<Long> pollOverdue(LocalDate today);
+
+    Optional<LocalDate> nextDueDate();
+
+    int size();
+}
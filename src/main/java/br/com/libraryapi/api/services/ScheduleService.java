@@ -1,32 +1,225 @@
 package br.com.libraryapi.api.services;
 
-import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.api.dto.LateLoanDTO;
+import br.com.libraryapi.model.entity.OutboxMessage;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+@Slf4j
+@Service
 public class ScheduleService {
-    private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
-
-    @Value("${application.mail.lateloans.message}")
-    private String message;
+    private static final int PROGRESS_EVERY_BATCHES = 100;
+    private static final int MAX_DIGEST_ITEMS = 100;
+    private static final int MAX_DIGEST_FIELD_LENGTH = 120;
+    private static final int DIGEST_TAIL_LENGTH = 40;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     private final LoanService loanService;
     private final EmailService emailService;
+    private final OverdueLoanTracker overdueLoanTracker;
+    private final boolean enabled;
+    private final String message;
+    private final int chunkSize;
+    private final int maxPendingBatches;
+    private final Semaphore pendingBatches;
+    private final ExecutorService executor;
 
-    public ScheduleService(LoanService loanService, EmailService emailService) {
+    public ScheduleService(LoanService loanService,
+                           EmailService emailService,
+                           OverdueLoanTracker overdueLoanTracker,
+                           @Value("${application.mail.lateloans.enabled:true}") boolean enabled,
+                           @Value("${application.mail.lateloans.message}") String message,
+                           @Value("${application.mail.lateloans.chunk-size:1000}") int chunkSize,
+                           @Value("${application.mail.lateloans.workers:4}") int workers,
+                           @Value("${application.mail.lateloans.max-pending-batches:8}") int maxPendingBatches) {
         this.loanService = loanService;
         this.emailService = emailService;
+        this.overdueLoanTracker = overdueLoanTracker;
+        this.enabled = enabled;
+        this.message = message;
+        this.chunkSize = chunkSize;
+        this.maxPendingBatches = maxPendingBatches;
+        this.pendingBatches = new Semaphore(maxPendingBatches);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("late-loan-mail-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(workers, threadFactory);
     }
 
-    @Scheduled(cron = CRON_LATE_LOANS)
+    @Scheduled(fixedDelayString = "${application.mail.lateloans.tick-interval:PT1M}")
     public void sendMailToLateLoans() {
-        List<Loan> loans = loanService.getAllLateLoans();
-        List<String> mails = loans.stream().map(Loan::getCustomerEmail).collect(Collectors.toList());
+        if (enabled) {
+            notifyOverdueLoans(LocalDate.now());
+        }
+    }
+
+    public synchronized Report notifyOverdueLoans(LocalDate today) {
+        List<Long> overdue = overdueLoanTracker.pollOverdue(today);
+        if (overdue.isEmpty()) {
+            return new Report(0, 0, 0, 0, 0, Duration.ZERO);
+        }
+        long start = System.nanoTime();
+        AtomicLong sent = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        Set<Long> handled = ConcurrentHashMap.newKeySet();
+        long customers = 0;
+        long loans = 0;
+        long batches = 0;
+
+        try {
+            NavigableSet<String> emails = new TreeSet<>();
+            for (int from = 0; from < overdue.size(); from += chunkSize) {
+                emails.addAll(loanService.getCustomersWithOpenLoansIn(
+                        overdue.subList(from, Math.min(overdue.size(), from + chunkSize))));
+            }
+
+            List<String> chunk = new ArrayList<>(chunkSize);
+            for (Iterator<String> it = emails.iterator(); it.hasNext(); ) {
+                chunk.add(it.next());
+                if (chunk.size() < chunkSize && it.hasNext()) {
+                    continue;
+                }
+                List<LateLoanDTO> lateLoans = loanService.getLateLoansOf(today, chunk);
+                customers += chunk.size();
+                loans += lateLoans.size();
+                batches++;
+                if (!lateLoans.isEmpty()) {
+                    dispatch(digests(lateLoans), ids(lateLoans), today, handled, sent, failed);
+                }
+                chunk = new ArrayList<>(chunkSize);
+
+                if (batches % PROGRESS_EVERY_BATCHES == 0) {
+                    log.info("Overdue loan notification: {} customers and {} loans read in {} batches, {} digests sent, {} failed, {} ms elapsed",
+                            customers, loans, batches, sent.get(), failed.get(), elapsedMillis(start));
+                }
+            }
+        } catch (RuntimeException e) {
+            awaitPendingBatches();
+            overdueLoanTracker.remindOn(overdue.stream().filter(id -> !handled.contains(id)).collect(Collectors.toList()),
+                    today);
+            throw e;
+        }
+
+        awaitPendingBatches();
+
+        Report report = new Report(customers, loans, batches, sent.get(), failed.get(), Duration.ofMillis(elapsedMillis(start)));
+        log.info("Overdue loan notification: {} loans polled, {} customers with {} open loans in {} batches, {} digests sent, {} failed in {} ms",
+                overdue.size(), report.getCustomers(), report.getLoans(), report.getBatches(), report.getSent(),
+                report.getFailed(), report.getDuration().toMillis());
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private Map<String, String> digests(List<LateLoanDTO> lateLoans) {
+        Map<String, List<LateLoanDTO>> byEmail = lateLoans.stream()
+                .collect(Collectors.groupingBy(LateLoanDTO::getEmail, LinkedHashMap::new, Collectors.toList()));
+        Map<String, String> digests = new LinkedHashMap<>(byEmail.size() * 2);
+        byEmail.forEach((email, loans) -> digests.put(email, digest(loans)));
+        return digests;
+    }
+
+    /**
+     * Lists at most {@link #MAX_DIGEST_ITEMS} books and stops earlier when the next line would not fit in an outbox
+     * message, so one customer with many long titles cannot fail the whole chunk.
+     */
+    private String digest(List<LateLoanDTO> loans) {
+        StringBuilder digest = new StringBuilder(message).append("\n\nLivros em atraso:\n");
+        int limit = OutboxMessage.MAX_MESSAGE_LENGTH - DIGEST_TAIL_LENGTH;
+        int listed = 0;
+        for (LateLoanDTO loan : loans) {
+            String line = "- " + abbreviate(loan.getTitle()) + " (ISBN " + abbreviate(loan.getIsbn())
+                    + "), emprestado em " + DATE_FORMAT.format(loan.getLoanDate()) + '\n';
+            if (listed == MAX_DIGEST_ITEMS || digest.length() + line.length() > limit) {
+                break;
+            }
+            digest.append(line);
+            listed++;
+        }
+        if (loans.size() > listed) {
+            digest.append("e mais ").append(loans.size() - listed).append(" livros.\n");
+        }
+        return digest.toString();
+    }
+
+    private String abbreviate(String value) {
+        if (value == null || value.length() <= MAX_DIGEST_FIELD_LENGTH) {
+            return value;
+        }
+        return value.substring(0, MAX_DIGEST_FIELD_LENGTH - 3) + "...";
+    }
+
+    private List<Long> ids(List<LateLoanDTO> lateLoans) {
+        return lateLoans.stream().map(LateLoanDTO::getId).collect(Collectors.toList());
+    }
+
+    private void dispatch(Map<String, String> digests, List<Long> loanIds, LocalDate today, Set<Long> handled,
+                          AtomicLong sent, AtomicLong failed) {
+        pendingBatches.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    emailService.sendMails(digests);
+                    sent.addAndGet(digests.size());
+                    overdueLoanTracker.remindOn(loanIds, today.plusDays(1));
+                } catch (RuntimeException e) {
+                    failed.addAndGet(digests.size());
+                    overdueLoanTracker.remindOn(loanIds, today);
+                    log.warn("Failed to send {} late loan digests", digests.size(), e);
+                } finally {
+                    handled.addAll(loanIds);
+                    pendingBatches.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingBatches.release();
+            throw e;
+        }
+    }
 
-        emailService.sendMails(message, mails);
+    private void awaitPendingBatches() {
+        pendingBatches.acquireUninterruptibly(maxPendingBatches);
+        pendingBatches.release(maxPendingBatches);
     }
 
+    private long elapsedMillis(long start) {
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Report {
+        private final long customers;
+        private final long loans;
+        private final long batches;
+        private final long sent;
+        private final long failed;
+        private final Duration duration;
+    }
 }
@@ -0,0 +1,14 @@
+package br.com.libraryapi.api.services;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.function.LongSupplier;
+
+public interface TotalCountService {
+    long count(String region, String filterKey, LongSupplier counter);
+
+    <T> Page<T> toPage(Slice<T> slice, String region, String filterKey, LongSupplier counter);
+
+    void invalidate(String region);
+}
@@ -0,0 +1,53 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.ActiveLoanIndex;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import br.com.libraryapi.support.ConcurrentLongHashSet;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.stream.Stream;
+
+@Service
+public class ActiveLoanIndexImpl implements ActiveLoanIndex {
+    private static final int EXPECTED_ACTIVE_LOANS = 1 << 16;
+    private static final int CONCURRENCY = 64;
+
+    private final LoanRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentLongHashSet loanedBooks = new ConcurrentLongHashSet(EXPECTED_ACTIVE_LOANS, CONCURRENCY);
+
+    public ActiveLoanIndexImpl(LoanRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    @PostConstruct
+    public synchronized void rebuild() {
+        loanedBooks.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Long> bookIds = repository.streamActiveLoanBookIds()) {
+                bookIds.forEach(loanedBooks::add);
+            }
+        });
+    }
+
+    @Override
+    public boolean isLoaned(long bookId) {
+        return loanedBooks.contains(bookId);
+    }
+
+    @Override
+    public boolean markLoaned(long bookId) {
+        return loanedBooks.add(bookId);
+    }
+
+    @Override
+    public void markReturned(long bookId) {
+        loanedBooks.remove(bookId);
+    }
+}
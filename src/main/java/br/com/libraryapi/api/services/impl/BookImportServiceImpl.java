@@ -0,0 +1,212 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.BookImportErrorDTO;
+import br.com.libraryapi.api.dto.BookImportReportDTO;
+import br.com.libraryapi.api.mappers.BookMapper;
+import br.com.libraryapi.api.services.BookImportService;
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.support.Csv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    private static final List<String> CSV_COLUMNS = List.of("title", "author", "isbn");
+
+    private final BookService bookService;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public BookImportServiceImpl(BookService bookService,
+                                 BookMapper bookMapper,
+                                 ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${application.import.chunk-size:500}") int chunkSize) {
+        this.bookService = bookService;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BookImportReportDTO importNdjson(InputStream input) throws IOException {
+        Importer importer = new Importer();
+        try (BufferedReader reader = reader(input)) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    importer.accept(lineNumber, objectMapper.readValue(line, BookDTO.class));
+                } catch (JsonProcessingException e) {
+                    importer.reject(lineNumber, null, "Linha inválida.");
+                }
+            }
+        }
+        return importer.finish();
+    }
+
+    @Override
+    public BookImportReportDTO importCsv(InputStream input) throws IOException {
+        Importer importer = new Importer();
+        try (BufferedReader reader = reader(input)) {
+            String header = reader.readLine();
+            int[] columns = header == null ? null : csvColumns(Csv.parseLine(header));
+            if (columns == null) {
+                throw new BusinessException("Cabeçalho CSV inválido.");
+            }
+            String line;
+            long lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> values = Csv.parseLine(line);
+                if (values == null) {
+                    importer.reject(lineNumber, null, "Linha inválida.");
+                    continue;
+                }
+                importer.accept(lineNumber, BookDTO.builder()
+                        .title(column(values, columns[0]))
+                        .author(column(values, columns[1]))
+                        .isbn(column(values, columns[2]))
+                        .build());
+            }
+        }
+        return importer.finish();
+    }
+
+    private BufferedReader reader(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    private int[] csvColumns(List<String> header) {
+        if (header == null) {
+            return null;
+        }
+        List<String> names = header.stream()
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    private String column(List<String> values, int index) {
+        return index < values.size() ? values.get(index) : null;
+    }
+
+    private class Importer {
+        private final List<Row> chunk = new ArrayList<>(chunkSize);
+        private final List<BookImportErrorDTO> errors = new ArrayList<>();
+        private long imported;
+
+        void accept(long line, BookDTO dto) {
+            List<String> violations = validator.validate(dto).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.toList());
+            if (!violations.isEmpty()) {
+                errors.add(new BookImportErrorDTO(line, dto.getIsbn(), violations));
+                return;
+            }
+            chunk.add(new Row(line, dto));
+            if (chunk.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String isbn, String message) {
+            errors.add(new BookImportErrorDTO(line, isbn, Collections.singletonList(message)));
+        }
+
+        BookImportReportDTO finish() {
+            flush();
+            return new BookImportReportDTO(imported, errors.size(), errors);
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> existing = bookService.findExistingIsbns(
+                    chunk.stream().map(row -> row.dto.getIsbn()).collect(Collectors.toSet()));
+            Set<String> seen = new HashSet<>();
+            List<Row> accepted = new ArrayList<>(chunk.size());
+            for (Row row : chunk) {
+                String isbn = row.dto.getIsbn();
+                if (existing.contains(isbn)) {
+                    reject(row.line, isbn, "Isbn já cadastrado.");
+                } else if (!seen.add(isbn)) {
+                    reject(row.line, isbn, "Isbn duplicado na importação.");
+                } else {
+                    accepted.add(row);
+                }
+            }
+            chunk.clear();
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            try {
+                imported += bookService.saveAll(accepted.stream().map(this::toBook).collect(Collectors.toList())).size();
+            } catch (BusinessException e) {
+                for (Row row : accepted) {
+                    try {
+                        bookService.save(toBook(row));
+                        imported++;
+                    } catch (BusinessException rowError) {
+                        reject(row.line, row.dto.getIsbn(), rowError.getMessage());
+                    }
+                }
+            }
+        }
+
+        private Book toBook(Row row) {
+            Book book = bookMapper.toEntity(row.dto);
+            book.setId(null);
+            return book;
+        }
+    }
+
+    private static class Row {
+        private final long line;
+        private final BookDTO dto;
+
+        Row(long line, BookDTO dto) {
+            this.line = line;
+            this.dto = dto;
+        }
+    }
+}
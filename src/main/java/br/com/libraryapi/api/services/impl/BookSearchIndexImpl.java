@@ -0,0 +1,379 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.BookSearchIndex;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.repositories.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BookSearchIndexImpl implements BookSearchIndex {
+    private static final int GRAM = 3;
+    private static final int LOAD_BATCH = 10_000;
+    private static final long[] NONE = new long[0];
+
+    private final BookRepository repository;
+    private final boolean enabled;
+    private final int maxDocuments;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Book> documents = new HashMap<>();
+    private final Map<Field, Map<String, PostingList>> postings = new EnumMap<>(Field.class);
+    private boolean available;
+
+    public BookSearchIndexImpl(BookRepository repository,
+                               @Value("${application.search.index.enabled:true}") boolean enabled,
+                               @Value("${application.search.index.max-documents:200000}") int maxDocuments) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxDocuments = maxDocuments;
+        for (Field field : Field.values()) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            clear();
+            available = false;
+
+            Long lastId = 0L;
+            Slice<Book> slice;
+            do {
+                Long after = lastId;
+                Specification<Book> afterId = (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+                slice = repository.findSlice(afterId, PageRequest.of(0, LOAD_BATCH, Sort.by("id")));
+                for (Book book : slice) {
+                    if (!add(book)) {
+                        return;
+                    }
+                    lastId = book.getId();
+                }
+            } while (slice.hasNext());
+            available = true;
+        } catch (RuntimeException e) {
+            log.warn("Book search index could not be loaded; filters fall back to the database", e);
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (available) {
+                delete(book.getId());
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (available) {
+                delete(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Page<Book>> search(Book filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            if (!available) {
+                return Optional.empty();
+            }
+            long[] candidates = candidates(filter);
+            if (candidates == null) {
+                return Optional.empty();
+            }
+
+            Comparator<Book> order = comparator(pageable.getSort());
+            long limit = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Long.MAX_VALUE;
+            PriorityQueue<Book> top = new PriorityQueue<>(order.reversed());
+            long total = 0;
+            for (long id : candidates) {
+                Book book = documents.get(id);
+                if (book == null || !matches(book, filter)) {
+                    continue;
+                }
+                total++;
+                if (top.size() < limit) {
+                    top.add(book);
+                } else if (order.compare(book, top.peek()) < 0) {
+                    top.poll();
+                    top.add(book);
+                }
+            }
+
+            List<Book> sorted = new ArrayList<>(top);
+            sorted.sort(order);
+            int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), sorted.size()) : 0;
+            List<Book> content = sorted.subList(from, sorted.size()).stream()
+                    .map(this::copy)
+                    .collect(Collectors.toList());
+            return Optional.of(new PageImpl<>(content, pageable, total));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] candidates(Book filter) {
+        if (filter.getId() != null) {
+            return documents.containsKey(filter.getId()) ? new long[]{filter.getId()} : NONE;
+        }
+
+        long[] result = null;
+        for (Field field : Field.values()) {
+            String value = field.read(filter);
+            if (value == null || value.length() < GRAM) {
+                continue;
+            }
+            long[] fieldCandidates = lookup(field, normalize(value));
+            result = result == null ? fieldCandidates : intersect(result, fieldCandidates);
+            if (result.length == 0) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private long[] lookup(Field field, String value) {
+        Map<String, PostingList> index = postings.get(field);
+        List<PostingList> lists = new ArrayList<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            PostingList ids = index.get(value.substring(i, i + GRAM));
+            if (ids == null) {
+                return NONE;
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        long[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retain(result);
+        }
+        return result;
+    }
+
+    private long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private boolean matches(Book book, Book filter) {
+        for (Field field : Field.values()) {
+            String expected = field.read(filter);
+            if (expected == null) {
+                continue;
+            }
+            String actual = field.read(book);
+            if (actual == null || !normalize(actual).contains(normalize(expected))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean add(Book book) {
+        if (documents.size() >= maxDocuments && !documents.containsKey(book.getId())) {
+            log.warn("Book search index exceeded {} documents and was dropped; filters fall back to the database",
+                    maxDocuments);
+            clear();
+            available = false;
+            return false;
+        }
+
+        Book document = copy(book);
+        documents.put(document.getId(), document);
+        for (Field field : Field.values()) {
+            Map<String, PostingList> index = postings.get(field);
+            for (String gram : grams(field.read(document))) {
+                index.computeIfAbsent(gram, g -> new PostingList()).add(document.getId());
+            }
+        }
+        return true;
+    }
+
+    private void delete(Long id) {
+        Book document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            Map<String, PostingList> index = postings.get(field);
+            for (String gram : grams(field.read(document))) {
+                PostingList ids = index.get(gram);
+                if (ids != null && ids.remove(id) && ids.size() == 0) {
+                    index.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        postings.values().forEach(Map::clear);
+    }
+
+    private Set<String> grams(String value) {
+        if (value == null) {
+            return Collections.emptySet();
+        }
+        String normalized = normalize(value);
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private Comparator<Book> comparator(Sort sort) {
+        Comparator<Book> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Book> next = Comparator.comparing(property(order.getProperty()),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<Book> byId = Comparator.comparing(Book::getId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    private Function<Book, Comparable> property(String property) {
+        switch (property) {
+            case "id":
+                return Book::getId;
+            case "title":
+                return Book::getTitle;
+            case "author":
+                return Book::getAuthor;
+            case "isbn":
+                return Book::getIsbn;
+            default:
+                throw new BusinessException("Invalid sort property: " + property);
+        }
+    }
+
+    private Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .build();
+    }
+
+    private enum Field {
+        TITLE(Book::getTitle),
+        AUTHOR(Book::getAuthor),
+        ISBN(Book::getIsbn);
+
+        private final Function<Book, String> reader;
+
+        Field(Function<Book, String> reader) {
+            this.reader = reader;
+        }
+
+        String read(Book book) {
+            return reader.apply(book);
+        }
+    }
+
+    private static final class PostingList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            int position = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -(position + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            if (ids.length > 8 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            return true;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        long[] retain(long[] candidates) {
+            long[] result = new long[candidates.length];
+            int count = 0;
+            for (long candidate : candidates) {
+                if (Arrays.binarySearch(ids, 0, size, candidate) >= 0) {
+                    result[count++] = candidate;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
@@ -1,31 +1,96 @@
 package br.com.libraryapi.api.services.impl;
 
+import br.com.libraryapi.api.services.BookSearchIndex;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.IsbnFilter;
+import br.com.libraryapi.api.services.TotalCountService;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.Keyset;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.convert.QueryByExamplePredicateBuilder;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
+    static final String COUNT_REGION = "books";
+
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnFilter isbnFilter;
+    private final TotalCountService totalCountService;
+    private final Counter isbnConflicts;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex, IsbnFilter isbnFilter,
+                           TotalCountService totalCountService, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.isbnFilter = isbnFilter;
+        this.totalCountService = totalCountService;
+        this.isbnConflicts = Counter.builder("library.books.isbn.conflicts").register(meterRegistry);
     }
 
     @Override
     public Book save(Book book) {
-        if (repository.existsByIsbn(book.getIsbn())) {
-            throw new BusinessException("Isbn já cadastrado.");
+        if (isbnFilter.mightExist(book.getIsbn()) && repository.existsByIsbn(book.getIsbn())) {
+            throw isbnConflict();
+        }
+
+        Book saved;
+        try {
+            saved = repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw isbnConflict();
+        }
+        isbnFilter.add(saved.getIsbn());
+        searchIndex.index(saved);
+        totalCountService.invalidate(COUNT_REGION);
+        return saved;
+    }
+
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        List<Book> saved;
+        try {
+            saved = repository.insertAll(books);
+        } catch (DataIntegrityViolationException e) {
+            throw isbnConflict();
+        }
+        for (Book book : saved) {
+            isbnFilter.add(book.getIsbn());
+            searchIndex.index(book);
+        }
+        totalCountService.invalidate(COUNT_REGION);
+        return saved;
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        List<String> candidates = isbns.stream()
+                .filter(isbnFilter::mightExist)
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
         }
-        return repository.save(book);
+        return repository.findExistingIsbns(candidates);
     }
 
     @Override
@@ -33,12 +98,20 @@ public class BookServiceImpl implements BookService {
         return repository.findById(id);
     }
 
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return repository.findVersionById(id);
+    }
+
     @Override
     public void delete(Book book) {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
         }
         this.repository.delete(book);
+        isbnFilter.remove(book.getIsbn());
+        searchIndex.remove(book.getId());
+        totalCountService.invalidate(COUNT_REGION);
     }
 
     @Override
@@ -46,21 +119,67 @@ public class BookServiceImpl implements BookService {
         if (book == null || book.getId() == null) {
             throw new IllegalArgumentException("Book id can't be null");
         }
-        return repository.save(book);
+        Book updated = repository.save(book);
+        searchIndex.index(updated);
+        totalCountService.invalidate(COUNT_REGION);
+        return updated;
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable request) {
-        Example<Book> example = Example.of(filter,
+        Optional<Page<Book>> indexed = searchIndex.search(filter, request);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        Example<Book> example = example(filter);
+        Slice<Book> slice = repository.findSlice(matching(example), request);
+
+        return totalCountService.toPage(slice, COUNT_REGION, filterKey(filter), () -> repository.count(example));
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable request) {
+        Optional<Page<Book>> indexed = searchIndex.search(filter, request);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        return repository.findSlice(matching(example(filter)), request);
+    }
+
+    @Override
+    public Slice<Book> findAfter(Book filter, Keyset keyset, int size) {
+        keyset.restrictTo("title", "author", "isbn");
+        return repository.findSlice(matching(example(filter)).and(keyset.toSpecification()),
+                PageRequest.of(0, size, keyset.sort()));
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        return repository.findByIsbn(isbn);
+    }
+
+    private Example<Book> example(Book filter) {
+        return Example.of(filter,
                 ExampleMatcher.matching()
                         .withIgnoreCase()
                         .withIgnoreNullValues()
                         .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example, request);
     }
 
-    @Override
-    public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+    private BusinessException isbnConflict() {
+        isbnConflicts.increment();
+        return new BusinessException("Isbn já cadastrado.");
+    }
+
+    private Specification<Book> matching(Example<Book> example) {
+        return (root, query, cb) -> QueryByExamplePredicateBuilder.getPredicate(root, cb, example);
+    }
+
+    private String filterKey(Book filter) {
+        return normalize(filter.getTitle()) + '|' + normalize(filter.getAuthor()) + '|' + normalize(filter.getIsbn());
+    }
+
+    private String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
     }
 }
@@ -0,0 +1,143 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.repositories.Keyset;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Primary
+public class CachingBookService implements BookService {
+    private final BookService delegate;
+    private final Cache<Long, Optional<Book>> byId;
+    private final Cache<String, Optional<Book>> byIsbn;
+
+    public CachingBookService(@Qualifier("bookServiceImpl") BookService delegate,
+                              @Value("${application.cache.books.maximum-size:10000}") long maximumSize,
+                              @Value("${application.cache.books.expire-after-write:PT10M}") Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.byIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Book save(Book book) {
+        Book saved = delegate.save(book);
+        invalidate(saved.getId(), saved.getIsbn());
+        return saved;
+    }
+
+    @Override
+    public List<Book> saveAll(List<Book> books) {
+        List<Book> saved = delegate.saveAll(books);
+        byId.invalidateAll(saved.stream().map(Book::getId).collect(Collectors.toList()));
+        byIsbn.invalidateAll(saved.stream().map(Book::getIsbn).collect(Collectors.toList()));
+        return saved;
+    }
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        return delegate.findExistingIsbns(isbns);
+    }
+
+    @Override
+    public Optional<Book> getById(Long id) {
+        return byId.get(id, key -> delegate.getById(key).map(this::copy)).map(this::copy);
+    }
+
+    @Override
+    public Optional<Long> getVersion(Long id) {
+        return delegate.getVersion(id);
+    }
+
+    @Override
+    public void delete(Book book) {
+        String storedIsbn = storedIsbn(book.getId());
+        delegate.delete(book);
+        invalidate(book.getId(), storedIsbn, book.getIsbn());
+    }
+
+    @Override
+    public Book update(Book book) {
+        String storedIsbn = storedIsbn(book.getId());
+        Book updated = delegate.update(book);
+        invalidate(updated.getId(), storedIsbn, updated.getIsbn());
+        return updated;
+    }
+
+    @Override
+    public Page<Book> find(Book filter, Pageable request) {
+        return delegate.find(filter, request);
+    }
+
+    @Override
+    public Slice<Book> findSlice(Book filter, Pageable request) {
+        return delegate.findSlice(filter, request);
+    }
+
+    @Override
+    public Slice<Book> findAfter(Book filter, Keyset keyset, int size) {
+        return delegate.findAfter(filter, keyset, size);
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        return byIsbn.get(isbn, key -> delegate.getBookByIsbn(key).map(this::copy)).map(this::copy);
+    }
+
+    public CacheStats byIdStats() {
+        return byId.stats();
+    }
+
+    public CacheStats byIsbnStats() {
+        return byIsbn.stats();
+    }
+
+    private String storedIsbn(Long id) {
+        Optional<Book> cached = byId.getIfPresent(id);
+        return (cached != null ? cached : delegate.getById(id)).map(Book::getIsbn).orElse(null);
+    }
+
+    private void invalidate(Long id, String... isbns) {
+        byId.invalidate(id);
+        for (String isbn : isbns) {
+            if (isbn != null) {
+                byIsbn.invalidate(isbn);
+            }
+        }
+    }
+
+    private Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.LoanExportDTO;
+import br.com.libraryapi.api.services.ExportService;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import br.com.libraryapi.support.Csv;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+@Service
+public class ExportServiceImpl implements ExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public ExportServiceImpl(BookRepository bookRepository,
+                             LoanRepository loanRepository,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void exportBooks(Format format, OutputStream output) throws IOException {
+        export(format, output, bookRepository::streamAllForExport,
+                "id,title,author,isbn\n",
+                book -> csvLine(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn()));
+    }
+
+    @Override
+    public void exportLoans(Format format, OutputStream output) throws IOException {
+        export(format, output, loanRepository::streamAllForExport,
+                "id,customer,email,loanDate,returned,bookId,isbn,title,author\n",
+                loan -> csvLine(loan.getId(), loan.getCustomer(), loan.getEmail(), loan.getLoanDate(),
+                        loan.getReturned(), loan.getBookId(), loan.getIsbn(), loan.getTitle(), loan.getAuthor()));
+    }
+
+    private <T> void export(Format format, OutputStream output, Supplier<Stream<T>> rows,
+                            String csvHeader, Function<T, String> csvLine) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(csvHeader);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<T> stream = rows.get()) {
+                    Iterator<T> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        T row = iterator.next();
+                        writer.write(format == Format.CSV ? csvLine.apply(row) : objectMapper.writeValueAsString(row) + '\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String csvLine(Object... values) {
+        StringBuilder line = new StringBuilder();
+        Csv.appendLine(line, values);
+        return line.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.IsbnFilter;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.support.CountingBloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Service
+public class IsbnFilterImpl implements IsbnFilter {
+    private static final long MINIMUM_CAPACITY = 100_000;
+
+    private final BookRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final ExecutorService rebuilder;
+
+    private volatile CountingBloomFilter filter;
+    private volatile CountingBloomFilter building;
+
+    public IsbnFilterImpl(BookRepository repository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${application.isbn-filter.enabled:true}") boolean enabled,
+                          @Value("${application.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("isbn-filter-rebuild-");
+        threadFactory.setDaemon(true);
+        this.rebuilder = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    @Override
+    @PostConstruct
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long books = repository.count();
+        CountingBloomFilter rebuilt = new CountingBloomFilter(Math.max(MINIMUM_CAPACITY, books * 2), falsePositiveRate);
+        AtomicLong loaded = new AtomicLong();
+        // Adds that arrive while the ISBNs are streamed are written to both filters, so none is lost by the swap.
+        building = rebuilt;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> isbns = repository.streamAllIsbns()) {
+                    isbns.forEach(isbn -> {
+                        rebuilt.add(isbn);
+                        loaded.incrementAndGet();
+                    });
+                }
+            });
+            insertions.set(loaded.get());
+            filter = rebuilt;
+        } finally {
+            building = null;
+        }
+    }
+
+    @Override
+    public boolean mightExist(String isbn) {
+        CountingBloomFilter current = filter;
+        return current == null || isbn == null || current.mightContain(isbn);
+    }
+
+    @Override
+    public void add(String isbn) {
+        CountingBloomFilter next = building;
+        CountingBloomFilter current = filter;
+        if (current == null || isbn == null) {
+            return;
+        }
+        current.add(isbn);
+        if (next != null && next != current) {
+            next.add(isbn);
+        }
+        if (insertions.incrementAndGet() > current.capacity() && rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    rebuildScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void remove(String isbn) {
+        CountingBloomFilter current = filter;
+        if (current == null || isbn == null) {
+            return;
+        }
+        current.remove(isbn);
+        insertions.decrementAndGet();
+    }
+}
@@ -1,36 +1,98 @@
 package br.com.libraryapi.api.services.impl;
 
+import br.com.libraryapi.api.dto.LateLoanDTO;
+import br.com.libraryapi.api.dto.LoanBookDTO;
 import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.dto.LoanReturnsReportDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
+import br.com.libraryapi.api.services.ActiveLoanIndex;
 import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import br.com.libraryapi.api.services.TotalCountService;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.Keyset;
+import br.com.libraryapi.model.repositories.LoanQuery;
 import br.com.libraryapi.model.repositories.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static br.com.libraryapi.model.repositories.LoanSpecifications.bookIsbn;
+import static br.com.libraryapi.model.repositories.LoanSpecifications.customer;
+import static br.com.libraryapi.model.repositories.LoanSpecifications.customerEmail;
+import static br.com.libraryapi.model.repositories.LoanSpecifications.loanDateBetween;
+import static br.com.libraryapi.model.repositories.LoanSpecifications.ofBook;
+import static br.com.libraryapi.model.repositories.LoanSpecifications.returned;
 
 @Service
 public class LoanServiceImpl implements LoanService {
+    static final String COUNT_REGION = "loans";
+    static final int LOAN_DAYS = 4;
+    private static final String OPEN_LOAN_CONSTRAINT = "uk_loan_open_book_id";
+
     private final LoanRepository repository;
+    private final TotalCountService totalCountService;
+    private final ActiveLoanIndex activeLoanIndex;
+    private final OverdueLoanTracker overdueLoanTracker;
+    private final Counter rejectedLoans;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, TotalCountService totalCountService, ActiveLoanIndex activeLoanIndex,
+                           OverdueLoanTracker overdueLoanTracker, MeterRegistry meterRegistry) {
         this.repository = repository;
+        this.totalCountService = totalCountService;
+        this.activeLoanIndex = activeLoanIndex;
+        this.overdueLoanTracker = overdueLoanTracker;
+        this.rejectedLoans = Counter.builder("library.loans.rejected")
+                .tag("reason", "already_loaned")
+                .register(meterRegistry);
     }
 
     @Override
     public Loan save(Loan loan) {
-        boolean loanExists = repository.existsByBookAndNotReturned(loan.getBook());
+        long bookId = loan.getBook().getId();
 
-        if (loanExists) {
-            throw new BusinessException("Book already loaned");
+        boolean marked = activeLoanIndex.markLoaned(bookId);
+        if (!marked && repository.existsByBookAndNotReturned(loan.getBook())) {
+            throw alreadyLoaned();
         }
 
-        return repository.save(loan);
+        Loan saved;
+        try {
+            saved = repository.save(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (isOpenLoanConflict(e)) {
+                throw alreadyLoaned();
+            }
+            releaseMark(marked, bookId);
+            throw e;
+        } catch (RuntimeException e) {
+            releaseMark(marked, bookId);
+            throw e;
+        }
+        overdueLoanTracker.track(saved.getId(), saved.getLoanDate());
+        totalCountService.invalidate(COUNT_REGION);
+        return saved;
     }
 
     @Override
@@ -40,24 +102,163 @@ public class LoanServiceImpl implements LoanService {
 
     @Override
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Loan updated;
+        try {
+            updated = repository.save(loan);
+        } catch (DataIntegrityViolationException e) {
+            if (isOpenLoanConflict(e)) {
+                throw alreadyLoaned();
+            }
+            throw e;
+        }
+        long bookId = updated.getBook().getId();
+        if (Boolean.TRUE.equals(updated.getReturned())) {
+            activeLoanIndex.markReturned(bookId);
+            overdueLoanTracker.untrack(updated.getId());
+        } else {
+            activeLoanIndex.markLoaned(bookId);
+            overdueLoanTracker.track(updated.getId(), updated.getLoanDate());
+        }
+        totalCountService.invalidate(COUNT_REGION);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public ReturnResult returnLoan(Long id) {
+        if (repository.markReturned(id) == 0) {
+            return repository.existsById(id) ? ReturnResult.ALREADY_RETURNED : ReturnResult.NOT_FOUND;
+        }
+        Optional<Long> bookId = repository.findBookIdById(id);
+        afterCommit(() -> {
+            bookId.ifPresent(activeLoanIndex::markReturned);
+            overdueLoanTracker.untrack(id);
+            totalCountService.invalidate(COUNT_REGION);
+        });
+        return ReturnResult.RETURNED;
+    }
+
+    @Override
+    @Transactional
+    public LoanReturnsReportDTO returnAll(Collection<Long> ids, Collection<String> isbns) {
+        Map<Long, LoanBookDTO> openLoans = new LinkedHashMap<>();
+        if (!ids.isEmpty()) {
+            repository.findOpenLoanBooksByIds(ids).forEach(loan -> openLoans.put(loan.getId(), loan));
+        }
+        if (!isbns.isEmpty()) {
+            repository.findOpenLoanBooksByIsbns(isbns).forEach(loan -> openLoans.put(loan.getId(), loan));
+        }
+
+        int returned = openLoans.isEmpty() ? 0 : repository.markAllReturned(openLoans.keySet());
+        afterCommit(() -> {
+            openLoans.values().forEach(loan -> {
+                activeLoanIndex.markReturned(loan.getBookId());
+                overdueLoanTracker.untrack(loan.getId());
+            });
+            totalCountService.invalidate(COUNT_REGION);
+        });
+
+        Set<String> returnedIsbns = openLoans.values().stream().map(LoanBookDTO::getIsbn).collect(Collectors.toSet());
+        return new LoanReturnsReportDTO(returned,
+                ids.stream().filter(id -> !openLoans.containsKey(id)).distinct().collect(Collectors.toList()),
+                isbns.stream().filter(isbn -> !returnedIsbns.contains(isbn)).distinct().collect(Collectors.toList()));
     }
 
     @Override
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
+        LoanQuery query = query(filter);
+        Slice<Loan> slice = repository.findSlice(query, pageable);
+
+        return totalCountService.toPage(slice, COUNT_REGION, filter.toString(), () -> repository.count(query));
+    }
+
+    @Override
+    public Slice<Loan> findSlice(LoanFilterDTO filter, Pageable pageable) {
+        return repository.findSlice(query(filter), pageable);
+    }
+
+    @Override
+    public Slice<Loan> findAfter(LoanFilterDTO filter, Keyset keyset, int size) {
+        keyset.restrictTo("loanDate");
+        return repository.findSlice(query(filter).and(keyset.toSpecification()), PageRequest.of(0, size, keyset.sort()));
     }
 
     @Override
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+        Slice<Loan> slice = getLoanSliceByBook(book, pageable);
+
+        return totalCountService.toPage(slice, COUNT_REGION, "book:" + book.getId(), () -> repository.countByBook(book));
     }
 
     @Override
-    public List<Loan> getAllLateLoans() {
-        final int loanDays = 4;
-        final LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
+    public Slice<Loan> getLoanSliceByBook(Book book, Pageable pageable) {
+        return repository.findSlice(ofBook(book), pageable);
+    }
+
+    @Override
+    public Slice<Loan> getLoansByBookAfter(Book book, Keyset keyset, int size) {
+        keyset.restrictTo("loanDate");
+        return repository.findSlice(ofBook(book).and(keyset.toSpecification()), PageRequest.of(0, size, keyset.sort()));
+    }
+
+    @Override
+    public LoansVersionDTO getLoansVersionByBook(Long bookId) {
+        return repository.findLoansVersionByBookId(bookId);
+    }
+
+    @Override
+    public List<LateLoanDTO> getLateLoansOf(LocalDate today, Collection<String> emails) {
+        return repository.findLateLoansOf(today.minusDays(LOAN_DAYS), emails);
+    }
+
+    @Override
+    public long countLateLoans(LocalDate today) {
+        return repository.countLateLoans(today.minusDays(LOAN_DAYS));
+    }
+
+    @Override
+    public List<String> getCustomersWithOpenLoansIn(Collection<Long> ids) {
+        return repository.findOpenLoanCustomerEmailsIn(ids);
+    }
+
+    private LoanQuery query(LoanFilterDTO filter) {
+        return LoanQuery.anyOf(bookIsbn(filter.getIsbn()), customer(filter.getCustomer()))
+                .and(customerEmail(filter.getEmail()))
+                .and(loanDateBetween(filter.getLoanDateFrom(), filter.getLoanDateTo()))
+                .and(returned(filter.getReturned()));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void releaseMark(boolean marked, long bookId) {
+        if (marked) {
+            activeLoanIndex.markReturned(bookId);
+        }
+    }
+
+    private boolean isOpenLoanConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(OPEN_LOAN_CONSTRAINT);
+            }
+        }
+        return false;
+    }
 
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+    private BusinessException alreadyLoaned() {
+        rejectedLoans.increment();
+        return new BusinessException("Book already loaned");
     }
 }
@@ -0,0 +1,19 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.MailTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.mail.smtp.enabled", havingValue = "false", matchIfMissing = true)
+public class LogMailTransport implements MailTransport {
+
+    @Override
+    public void send(String message, List<String> recipients) {
+        log.info("Sending \"{}\" to {} recipients", message, recipients.size());
+    }
+}
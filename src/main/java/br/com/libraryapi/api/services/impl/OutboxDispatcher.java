@@ -0,0 +1,208 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.MailTransport;
+import br.com.libraryapi.model.entity.OutboxMessage;
+import br.com.libraryapi.model.entity.OutboxStatus;
+import br.com.libraryapi.model.repositories.OutboxMessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMessageRepository repository;
+    private final MailTransport transport;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration pollInterval;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final Duration retention;
+    private final Object signal = new Object();
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public OutboxDispatcher(OutboxMessageRepository repository,
+                            MailTransport transport,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${application.outbox.enabled:true}") boolean enabled,
+                            @Value("${application.outbox.workers:4}") int workers,
+                            @Value("${application.outbox.batch-size:100}") int batchSize,
+                            @Value("${application.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${application.outbox.poll-interval:PT1S}") Duration pollInterval,
+                            @Value("${application.outbox.initial-backoff:PT5S}") Duration initialBackoff,
+                            @Value("${application.outbox.max-backoff:PT30M}") Duration maxBackoff,
+                            @Value("${application.outbox.claim-timeout:PT5M}") Duration claimTimeout,
+                            @Value("${application.outbox.retention:P7D}") Duration retention) {
+        this.repository = repository;
+        this.transport = transport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollInterval = pollInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("outbox-dispatcher-");
+        threadFactory.setDaemon(true);
+        executor = Executors.newFixedThreadPool(workers, threadFactory);
+        for (int partition = 0; partition < workers; partition++) {
+            final int workerPartition = partition;
+            executor.execute(() -> work(workerPartition));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeUp();
+        executor.shutdown();
+        executor.awaitTermination(pollInterval.toMillis() * 2, TimeUnit.MILLISECONDS);
+    }
+
+    public void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    public int dispatchBatch() {
+        return dispatchBatch(0, 1);
+    }
+
+    public int dispatchBatch(int partition, int partitions) {
+        String token = UUID.randomUUID().toString();
+        List<OutboxMessage> claimed = transactionTemplate.execute(status -> claim(token, partition, partitions));
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> sent = new ArrayList<>(claimed.size());
+        List<OutboxMessage> failed = new ArrayList<>();
+        for (OutboxMessage message : claimed) {
+            try {
+                transport.send(message.getMessage(), Collections.singletonList(message.getRecipient()));
+                sent.add(message.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to send outbox message {}", message.getId(), e);
+                scheduleRetry(message, e);
+                failed.add(message);
+            }
+        }
+
+        Instant sentAt = Instant.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                repository.markSent(sent, token, sentAt);
+            }
+            failed.forEach(message -> repository.markFailed(message.getId(), token, message.getStatus(),
+                    message.getAttempts(), message.getNextAttemptAt(), message.getLastError()));
+        });
+        return claimed.size();
+    }
+
+    @Scheduled(fixedDelayString = "${application.outbox.purge-interval:PT1H}")
+    public void purgeSent() {
+        int purged = transactionTemplate.execute(status -> repository.deleteSentBefore(Instant.now().minus(retention)));
+        if (purged > 0) {
+            log.info("Purged {} sent outbox messages", purged);
+        }
+    }
+
+    private List<OutboxMessage> claim(String token, int partition, int partitions) {
+        Instant now = Instant.now();
+        Instant staleBefore = now.minus(claimTimeout);
+        List<Long> ids = repository.findClaimableIds(now, staleBefore, partition, partitions, PageRequest.of(0, batchSize));
+        if (ids.isEmpty() || repository.claim(ids, token, now, staleBefore) == 0) {
+            return Collections.emptyList();
+        }
+        return repository.findByClaimToken(token);
+    }
+
+    private void scheduleRetry(OutboxMessage message, RuntimeException error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(String.valueOf(error.getMessage())));
+        if (attempts >= maxAttempts) {
+            message.setStatus(OutboxStatus.FAILED);
+            return;
+        }
+        message.setStatus(OutboxStatus.PENDING);
+        message.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private void work(int partition) {
+        while (running) {
+            int dispatched;
+            try {
+                dispatched = dispatchBatch(partition, workers);
+            } catch (RuntimeException e) {
+                log.warn("Outbox dispatcher {} failed", partition, e);
+                dispatched = 0;
+            }
+            if (dispatched == 0) {
+                await();
+            }
+        }
+    }
+
+    private void await() {
+        synchronized (signal) {
+            try {
+                signal.wait(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
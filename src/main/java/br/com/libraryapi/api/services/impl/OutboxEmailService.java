@@ -0,0 +1,65 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.EmailService;
+import br.com.libraryapi.model.entity.OutboxMessage;
+import br.com.libraryapi.model.entity.OutboxStatus;
+import br.com.libraryapi.model.repositories.OutboxMessageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class OutboxEmailService implements EmailService {
+    private final OutboxMessageRepository repository;
+    private final OutboxDispatcher dispatcher;
+
+    public OutboxEmailService(OutboxMessageRepository repository, OutboxDispatcher dispatcher) {
+        this.repository = repository;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void sendMails(String message, List<String> mails) {
+        enqueue(mails.stream().map(mail -> outboxMessage(mail, message, Instant.now())));
+    }
+
+    @Override
+    public void sendMails(Map<String, String> messagesByMail) {
+        enqueue(messagesByMail.entrySet().stream().map(mail -> outboxMessage(mail.getKey(), mail.getValue(), Instant.now())));
+    }
+
+    private void enqueue(Stream<OutboxMessage> messages) {
+        List<OutboxMessage> rows = messages.collect(Collectors.toList());
+        if (rows.isEmpty()) {
+            return;
+        }
+        repository.saveAll(rows);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.wakeUp();
+                }
+            });
+        } else {
+            dispatcher.wakeUp();
+        }
+    }
+
+    private OutboxMessage outboxMessage(String mail, String message, Instant now) {
+        return OutboxMessage.builder()
+                .recipient(mail)
+                .message(message)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
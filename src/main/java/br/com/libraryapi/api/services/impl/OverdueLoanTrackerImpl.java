@@ -0,0 +1,80 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.dto.OpenLoanDTO;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import br.com.libraryapi.support.DueDateQueue;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static br.com.libraryapi.api.services.impl.LoanServiceImpl.LOAN_DAYS;
+
+@Service
+public class OverdueLoanTrackerImpl implements OverdueLoanTracker {
+    private final LoanRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final DueDateQueue dueLoans = new DueDateQueue();
+
+    public OverdueLoanTrackerImpl(LoanRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    @PostConstruct
+    public void rebuild() {
+        rebuild(LocalDate.now());
+    }
+
+    synchronized void rebuild(LocalDate today) {
+        LocalDate tomorrow = today.plusDays(1);
+        dueLoans.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<OpenLoanDTO> loans = repository.streamOpenLoans()) {
+                loans.forEach(loan -> {
+                    LocalDate dueDate = loan.getLoanDate().plusDays(LOAN_DAYS);
+                    dueLoans.schedule(loan.getId(), dueDate.isBefore(today) ? tomorrow : dueDate);
+                });
+            }
+        });
+    }
+
+    @Override
+    public void track(long loanId, LocalDate loanDate) {
+        dueLoans.schedule(loanId, loanDate.plusDays(LOAN_DAYS));
+    }
+
+    @Override
+    public void untrack(long loanId) {
+        dueLoans.cancel(loanId);
+    }
+
+    @Override
+    public void remindOn(Collection<Long> loanIds, LocalDate day) {
+        loanIds.forEach(loanId -> dueLoans.schedule(loanId, day));
+    }
+
+    @Override
+    public List<Long> pollOverdue(LocalDate today) {
+        return dueLoans.pollDue(today);
+    }
+
+    @Override
+    public Optional<LocalDate> nextDueDate() {
+        return dueLoans.nextDueDate();
+    }
+
+    @Override
+    public int size() {
+        return dueLoans.size();
+    }
+}
@@ -0,0 +1,171 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.MailTransport;
+import br.com.libraryapi.exceptions.MailDeliveryException;
+import br.com.libraryapi.support.RateLimiter;
+import br.com.libraryapi.support.SmtpSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "application.mail.smtp.enabled", havingValue = "true")
+public class SmtpMailTransport implements MailTransport {
+    private static final int BASE64_LINE_LENGTH = 76;
+
+    private final String host;
+    private final int port;
+    private final String heloName;
+    private final boolean startTls;
+    private final String username;
+    private final String password;
+    private final String from;
+    private final String subject;
+    private final int maxRecipientsPerMessage;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final RateLimiter rateLimiter;
+    private final Semaphore connections;
+    private final BlockingQueue<SmtpSession> idle = new LinkedBlockingQueue<>();
+
+    public SmtpMailTransport(@Value("${application.mail.smtp.host}") String host,
+                             @Value("${application.mail.smtp.port:25}") int port,
+                             @Value("${application.mail.smtp.helo-name:localhost}") String heloName,
+                             @Value("${application.mail.smtp.starttls:false}") boolean startTls,
+                             @Value("${application.mail.smtp.username:}") String username,
+                             @Value("${application.mail.smtp.password:}") String password,
+                             @Value("${application.mail.smtp.from}") String from,
+                             @Value("${application.mail.smtp.subject:Biblioteca}") String subject,
+                             @Value("${application.mail.smtp.pool-size:4}") int poolSize,
+                             @Value("${application.mail.smtp.max-recipients-per-message:100}") int maxRecipientsPerMessage,
+                             @Value("${application.mail.smtp.rate-per-second:0}") double ratePerSecond,
+                             @Value("${application.mail.smtp.connect-timeout:PT10S}") Duration connectTimeout,
+                             @Value("${application.mail.smtp.read-timeout:PT30S}") Duration readTimeout) {
+        this.host = host;
+        this.port = port;
+        this.heloName = heloName;
+        this.startTls = startTls;
+        this.username = username;
+        this.password = password;
+        this.from = from;
+        this.subject = subject;
+        this.maxRecipientsPerMessage = maxRecipientsPerMessage;
+        this.connectTimeoutMillis = (int) connectTimeout.toMillis();
+        this.readTimeoutMillis = (int) readTimeout.toMillis();
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.connections = new Semaphore(poolSize);
+    }
+
+    @Override
+    public void send(String message, List<String> recipients) {
+        byte[] content = content(message);
+        for (int start = 0; start < recipients.size(); start += maxRecipientsPerMessage) {
+            List<String> chunk = recipients.subList(start, Math.min(recipients.size(), start + maxRecipientsPerMessage));
+            rateLimiter.acquire(chunk.size());
+            List<SmtpSession.Rejection> rejected = sendWithPooledSession(chunk, content);
+            List<SmtpSession.Rejection> deferred = rejected.stream()
+                    .filter(SmtpSession.Rejection::isTemporary)
+                    .collect(Collectors.toList());
+            if (!deferred.isEmpty()) {
+                throw new MailDeliveryException("SMTP server deferred " + deferred.size() + " of " + chunk.size()
+                        + " recipients: " + deferred.get(0).getText());
+            }
+            if (!rejected.isEmpty()) {
+                log.warn("SMTP server permanently rejected {} of {} recipients", rejected.size(), chunk.size());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        SmtpSession session;
+        while ((session = idle.poll()) != null) {
+            closeQuietly(session);
+        }
+    }
+
+    private List<SmtpSession.Rejection> sendWithPooledSession(List<String> recipients, byte[] content) {
+        connections.acquireUninterruptibly();
+        try {
+            SmtpSession session = idle.poll();
+            boolean reused = session != null;
+            try {
+                if (session == null) {
+                    session = open();
+                }
+                List<SmtpSession.Rejection> rejected = session.send(from, recipients, content);
+                idle.offer(session);
+                return rejected;
+            } catch (IOException e) {
+                closeQuietly(session);
+                if (!reused || e instanceof SmtpSession.SmtpException) {
+                    throw new MailDeliveryException("Failed to send mail through " + host + ":" + port, e);
+                }
+            }
+            return retryOnFreshSession(recipients, content);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private List<SmtpSession.Rejection> retryOnFreshSession(List<String> recipients, byte[] content) {
+        SmtpSession session = null;
+        try {
+            session = open();
+            List<SmtpSession.Rejection> rejected = session.send(from, recipients, content);
+            idle.offer(session);
+            return rejected;
+        } catch (IOException e) {
+            closeQuietly(session);
+            throw new MailDeliveryException("Failed to send mail through " + host + ":" + port, e);
+        }
+    }
+
+    private SmtpSession open() throws IOException {
+        return SmtpSession.open(host, port, heloName, startTls, username, password, connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    private void closeQuietly(SmtpSession session) {
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (IOException e) {
+            log.debug("Failed to close SMTP session", e);
+        }
+    }
+
+    private byte[] content(String message) {
+        StringBuilder content = new StringBuilder()
+                .append("From: ").append(from).append("\r\n")
+                .append("To: undisclosed-recipients:;\r\n")
+                .append("Subject: =?UTF-8?B?")
+                .append(Base64.getEncoder().encodeToString(subject.getBytes(StandardCharsets.UTF_8))).append("?=\r\n")
+                .append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now())).append("\r\n")
+                .append("MIME-Version: 1.0\r\n")
+                .append("Content-Type: text/plain; charset=UTF-8\r\n")
+                .append("Content-Transfer-Encoding: base64\r\n")
+                .append("\r\n");
+        String body = Base64.getEncoder().encodeToString(message.getBytes(StandardCharsets.UTF_8));
+        for (int start = 0; start < body.length(); start += BASE64_LINE_LENGTH) {
+            content.append(body, start, Math.min(body.length(), start + BASE64_LINE_LENGTH)).append("\r\n");
+        }
+        return content.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.libraryapi.api.services.impl;
+
+import br.com.libraryapi.api.services.TotalCountService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Service
+public class TotalCountServiceImpl implements TotalCountService {
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Cache<String, Entry> entries;
+
+    public TotalCountServiceImpl(@Value("${application.pagination.count-ttl:PT1M}") Duration ttl,
+                                 @Value("${application.pagination.count-cache-size:10000}") int maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public long count(String region, String filterKey, LongSupplier counter) {
+        String key = region + ':' + filterKey;
+        long generation = generation(region).get();
+
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && entry.generation == generation) {
+            return entry.count;
+        }
+
+        long count = counter.getAsLong();
+        if (generation(region).get() == generation) {
+            entries.put(key, new Entry(count, generation));
+        }
+        return count;
+    }
+
+    @Override
+    public <T> Page<T> toPage(Slice<T> slice, String region, String filterKey, LongSupplier counter) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        if (!slice.hasNext() && (slice.hasContent() || offset == 0)) {
+            return new PageImpl<>(slice.getContent(), slice.getPageable(), offset + slice.getNumberOfElements());
+        }
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), count(region, filterKey, counter));
+    }
+
+    @Override
+    public void invalidate(String region) {
+        generation(region).incrementAndGet();
+    }
+
+    private AtomicLong generation(String region) {
+        return generations.computeIfAbsent(region, r -> new AtomicLong());
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long generation;
+
+        private Entry(long count, long generation) {
+            this.count = count;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package br.com.libraryapi.exceptions;
+
+public class MailDeliveryException extends RuntimeException {
+    public MailDeliveryException(String s) {
+        super(s);
+    }
+
+    public MailDeliveryException(String s, Throwable cause) {
+        super(s, cause);
+    }
+}
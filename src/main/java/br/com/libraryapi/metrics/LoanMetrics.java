@@ -0,0 +1,31 @@
+package br.com.libraryapi.metrics;
+
+import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+public class LoanMetrics implements MeterBinder {
+    private final LoanService loanService;
+    private final OverdueLoanTracker overdueLoanTracker;
+
+    public LoanMetrics(LoanService loanService, OverdueLoanTracker overdueLoanTracker) {
+        this.loanService = loanService;
+        this.overdueLoanTracker = overdueLoanTracker;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.loans.active", overdueLoanTracker, OverdueLoanTracker::size)
+                .description("Loans not yet returned")
+                .register(registry);
+        Gauge.builder("library.loans.overdue", loanService, service -> service.countLateLoans(LocalDate.now()))
+                .description("Loans not returned past their due date")
+                .register(registry);
+    }
+}
@@ -0,0 +1,55 @@
+package br.com.libraryapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class MethodMetricsAspect {
+    static final String SERVICE_TIMER = "library.service";
+    static final String REPOSITORY_TIMER = "library.repository";
+
+    private final MeterRegistry registry;
+
+    public MethodMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* br.com.libraryapi.api.services.BookService.*(..))" +
+            " || execution(* br.com.libraryapi.api.services.LoanService.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(SERVICE_TIMER, joinPoint.getTarget().getClass().getSimpleName(), joinPoint);
+    }
+
+    @Around("this(br.com.libraryapi.model.repositories.BookRepository)")
+    public Object timeBookRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, "BookRepository", joinPoint);
+    }
+
+    @Around("this(br.com.libraryapi.model.repositories.LoanRepository)")
+    public Object timeLoanRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(REPOSITORY_TIMER, "LoanRepository", joinPoint);
+    }
+
+    private Object time(String name, String type, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("class", type)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package br.com.libraryapi.model.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+public class CaffeineRegionFactory extends JCacheRegionFactory {
+    public static final String ENTITIES_MAXIMUM_SIZE = "hibernate.cache.caffeine.entities.maximum_size";
+    public static final String ENTITIES_EXPIRE_AFTER_WRITE = "hibernate.cache.caffeine.entities.expire_after_write";
+    public static final String QUERIES_MAXIMUM_SIZE = "hibernate.cache.caffeine.queries.maximum_size";
+    public static final String QUERIES_EXPIRE_AFTER_WRITE = "hibernate.cache.caffeine.queries.expire_after_write";
+
+    private volatile Map<?, ?> properties;
+
+    @Override
+    protected CacheManager resolveCacheManager(SessionFactoryOptions settings, Map properties) {
+        this.properties = properties;
+        // A URI of its own per session factory: the provider hands out one shared manager per URI, and Hibernate
+        // closes the manager when the session factory shuts down.
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        return provider.getCacheManager(URI.create("caffeine:hibernate-" + UUID.randomUUID()), getClassLoader(provider));
+    }
+
+    @Override
+    protected Cache<Object, Object> getOrCreateCache(String regionName, SessionFactoryImplementor sessionFactory) {
+        CacheManager cacheManager = getCacheManager();
+        for (String name : cacheManager.getCacheNames()) {
+            if (name.equals(regionName)) {
+                return cacheManager.getCache(regionName);
+            }
+        }
+        return createCache(regionName);
+    }
+
+    @Override
+    protected Cache<Object, Object> createCache(String regionName) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        if (regionName.endsWith(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME)) {
+            bound(configuration, QUERIES_MAXIMUM_SIZE, "1000", QUERIES_EXPIRE_AFTER_WRITE, "PT1M");
+        } else if (!regionName.endsWith(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME)) {
+            bound(configuration, ENTITIES_MAXIMUM_SIZE, "10000", ENTITIES_EXPIRE_AFTER_WRITE, "PT10M");
+        }
+        return getCacheManager().createCache(regionName, configuration);
+    }
+
+    private void bound(CaffeineConfiguration<Object, Object> configuration, String maximumSize, String defaultMaximumSize,
+                       String expireAfterWrite, String defaultExpireAfterWrite) {
+        configuration.setMaximumSize(OptionalLong.of(Long.parseLong(property(maximumSize, defaultMaximumSize))));
+        configuration.setExpireAfterWrite(OptionalLong.of(Duration.parse(property(expireAfterWrite, defaultExpireAfterWrite)).toNanos()));
+    }
+
+    private String property(String key, String defaultValue) {
+        Object value = properties == null ? null : properties.get(key);
+        return value == null ? defaultValue : value.toString();
+    }
+}
@@ -1,9 +1,11 @@
 package br.com.libraryapi.model.entity;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -23,10 +25,26 @@ public class Loan {
     @Column(name = "customer_email")
     private String customerEmail;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     private LocalDate loanDate;
 
-    private Boolean returned;
+    @Builder.Default
+    @Column(nullable = false)
+    private Boolean returned = false;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "open_book_id", unique = true)
+    private Long openBookId;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void beforeWrite() {
+        returned = Boolean.TRUE.equals(returned);
+        openBookId = returned || book == null ? null : book.getId();
+    }
 }
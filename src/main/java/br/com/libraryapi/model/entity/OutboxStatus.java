@@ -0,0 +1,8 @@
+package br.com.libraryapi.model.entity;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookRepositoryCustom {
+    Slice<Book> findSlice(Specification<Book> specification, Pageable pageable);
+
+    List<Book> insertAll(List<Book> books);
+
+    Optional<Book> findByIsbn(String isbn);
+}
@@ -0,0 +1,40 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Book;
+import org.hibernate.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Book> findSlice(Specification<Book> specification, Pageable pageable) {
+        return SliceQueries.find(entityManager, Book.class, specification, pageable);
+    }
+
+    @Override
+    @Transactional
+    public List<Book> insertAll(List<Book> books) {
+        for (Book book : books) {
+            entityManager.persist(book);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Book> findByIsbn(String isbn) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Book.class).loadOptional(isbn);
+    }
+}
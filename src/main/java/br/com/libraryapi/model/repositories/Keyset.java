@@ -0,0 +1,151 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.exceptions.BusinessException;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+public class Keyset {
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "!";
+    private static final String VALUE_PREFIX = "=";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long id;
+    private final String value;
+
+    private Keyset(String property, Sort.Direction direction, Long id, String value) {
+        this.property = property;
+        this.direction = direction;
+        this.id = id;
+        this.value = value;
+    }
+
+    public static Keyset of(String cursor, Sort sort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return first(sort);
+        }
+        Keyset keyset = decode(cursor);
+        if (sort.isSorted()) {
+            Keyset requested = first(sort);
+            if (!requested.property.equals(keyset.property) || requested.direction != keyset.direction) {
+                throw new BusinessException("Cursor does not match the requested sort");
+            }
+        }
+        return keyset;
+    }
+
+    public static Keyset first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(ID));
+        return new Keyset(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    public static Keyset decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new BusinessException("Invalid cursor");
+            }
+            return new Keyset(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), decodeValue(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction + SEPARATOR + id + SEPARATOR
+                + (value == null ? NULL_VALUE : VALUE_PREFIX + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Keyset restrictTo(String... properties) {
+        List<String> allowed = Arrays.asList(properties);
+        if (!ID.equals(property) && !allowed.contains(property)) {
+            throw new BusinessException("Invalid cursor sort property: " + property);
+        }
+        return this;
+    }
+
+    public Keyset next(Object last) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(last);
+        Long lastId = (Long) wrapper.getPropertyValue(ID);
+        Object lastValue = wrapper.getPropertyValue(property);
+        return new Keyset(property, direction, lastId, lastValue == null ? null : String.valueOf(lastValue));
+    }
+
+    public Sort sort() {
+        if (ID.equals(property)) {
+            return Sort.by(direction, ID);
+        }
+        return Sort.by(direction, property).and(Sort.by(direction, ID));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Specification<T> toSpecification() {
+        return (root, query, cb) -> {
+            if (id == null) {
+                return null;
+            }
+            Path<Long> idPath = root.get(ID);
+            Predicate afterId = after(cb, idPath, id);
+            if (ID.equals(property)) {
+                return afterId;
+            }
+            // Null keys sort first in both directions (hibernate.order_by.default_null_ordering=first).
+            Path<Comparable> key = root.get(property);
+            if (value == null) {
+                return cb.or(cb.isNotNull(key), cb.and(cb.isNull(key), afterId));
+            }
+            Comparable keyValue = convert(value, key.getJavaType());
+            return cb.or(after(cb, key, keyValue), cb.and(cb.equal(key, keyValue), afterId));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate after(CriteriaBuilder cb, Path path, Comparable value) {
+        return direction.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+
+    private static String decodeValue(String encoded) {
+        if (NULL_VALUE.equals(encoded)) {
+            return null;
+        }
+        if (!encoded.startsWith(VALUE_PREFIX)) {
+            throw new BusinessException("Invalid cursor");
+        }
+        return encoded.substring(VALUE_PREFIX.length());
+    }
+
+    private static Comparable<?> convert(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return value;
+            }
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            }
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+        throw new BusinessException("Invalid cursor");
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public final class LoanQuery {
+    private final List<Specification<Loan>> anyOf;
+    private final Specification<Loan> allOf;
+
+    private LoanQuery(List<Specification<Loan>> anyOf, Specification<Loan> allOf) {
+        this.anyOf = anyOf;
+        this.allOf = allOf;
+    }
+
+    public static LoanQuery all() {
+        return new LoanQuery(Collections.emptyList(), null);
+    }
+
+    @SafeVarargs
+    public static LoanQuery anyOf(Specification<Loan>... branches) {
+        return new LoanQuery(Arrays.stream(branches).filter(Objects::nonNull).collect(Collectors.toList()), null);
+    }
+
+    public LoanQuery and(Specification<Loan> specification) {
+        if (specification == null) {
+            return this;
+        }
+        return new LoanQuery(anyOf, allOf == null ? Specification.where(specification) : allOf.and(specification));
+    }
+
+    boolean isUnion() {
+        return anyOf.size() > 1;
+    }
+
+    List<Specification<Loan>> branches() {
+        if (anyOf.isEmpty()) {
+            return Collections.singletonList(allOf);
+        }
+        return anyOf.stream().map(this::restrict).collect(Collectors.toList());
+    }
+
+    private Specification<Loan> restrict(Specification<Loan> branch) {
+        return allOf == null ? branch : Specification.where(branch).and(allOf);
+    }
+}
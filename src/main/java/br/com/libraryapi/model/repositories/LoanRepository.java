@@ -1,28 +1,91 @@
 package br.com.libraryapi.model.repositories;
 
+import br.com.libraryapi.api.dto.LateLoanDTO;
+import br.com.libraryapi.api.dto.LoanBookDTO;
+import br.com.libraryapi.api.dto.LoanExportDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
+import br.com.libraryapi.api.dto.OpenLoanDTO;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
     @Query(value = "select case when ( count(l.id ) > 0 ) then true else false end" +
-            " from Loan l where l.book = :book and ( l.returned is null or l.returned is false )")
+            " from Loan l where l.book = :book and l.returned = false")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
-    Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageable);
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    long countByBook(Book book);
 
+    @EntityGraph(attributePaths = "book")
     Page<Loan> findByBook(Book book, Pageable pageable);
 
-    @Query(value = "select l from Loan as l where l.loanDate <= :threeDaysAgo and (l.returned is null or l.returned is false)")
+    @Query(value = "select l.book.id from Loan as l where l.returned = false")
+    Stream<Long> streamActiveLoanBookIds();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select new br.com.libraryapi.api.dto.OpenLoanDTO(l.id, l.loanDate)" +
+            " from Loan as l where l.returned = false")
+    Stream<OpenLoanDTO> streamOpenLoans();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select new br.com.libraryapi.api.dto.LoanExportDTO(l.id, l.customer, l.customerEmail, l.loanDate," +
+            " l.returned, b.id, b.isbn, b.title, b.author) from Loan as l join l.book as b order by l.id")
+    Stream<LoanExportDTO> streamAllForExport();
+
+    @Query(value = "select l from Loan as l where l.loanDate <= :threeDaysAgo and l.returned = false")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+
+    @Query(value = "select count(l.id) from Loan as l where l.loanDate <= :lateSince and l.returned = false")
+    long countLateLoans(@Param("lateSince") LocalDate lateSince);
+
+    @Query(value = "select new br.com.libraryapi.api.dto.LateLoanDTO(l.id, l.customer, l.customerEmail, l.loanDate, b.title, b.isbn)" +
+            " from Loan as l join l.book as b where l.loanDate <= :lateSince and l.returned = false" +
+            " and l.customerEmail in :emails order by l.customerEmail, l.loanDate, l.id")
+    List<LateLoanDTO> findLateLoansOf(@Param("lateSince") LocalDate lateSince, @Param("emails") Collection<String> emails);
+
+    @Query(value = "select distinct l.customerEmail from Loan as l where l.id in :ids and l.returned = false")
+    List<String> findOpenLoanCustomerEmailsIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "update Loan l set l.returned = true, l.openBookId = null, l.version = l.version + 1" +
+            " where l.id = :id and l.returned = false")
+    int markReturned(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "update Loan l set l.returned = true, l.openBookId = null, l.version = l.version + 1" +
+            " where l.id in :ids and l.returned = false")
+    int markAllReturned(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select new br.com.libraryapi.api.dto.LoansVersionDTO(count(l), coalesce(sum(l.version), 0), coalesce(max(l.id), 0))" +
+            " from Loan as l where l.book.id = :bookId")
+    LoansVersionDTO findLoansVersionByBookId(@Param("bookId") Long bookId);
+
+    @Query(value = "select l.book.id from Loan as l where l.id = :id")
+    Optional<Long> findBookIdById(@Param("id") Long id);
+
+    @Query(value = "select new br.com.libraryapi.api.dto.LoanBookDTO(l.id, b.id, b.isbn)" +
+            " from Loan as l join l.book as b where l.id in :ids and l.returned = false")
+    List<LoanBookDTO> findOpenLoanBooksByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "select new br.com.libraryapi.api.dto.LoanBookDTO(l.id, b.id, b.isbn)" +
+            " from Loan as l join l.book as b where b.isbn in :isbns and l.returned = false")
+    List<LoanBookDTO> findOpenLoanBooksByIsbns(@Param("isbns") Collection<String> isbns);
 }
@@ -0,0 +1,14 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface LoanRepositoryCustom {
+    Slice<Loan> findSlice(Specification<Loan> specification, Pageable pageable);
+
+    Slice<Loan> findSlice(LoanQuery query, Pageable pageable);
+
+    long count(LoanQuery query);
+}
@@ -0,0 +1,77 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static br.com.libraryapi.model.repositories.LoanSpecifications.idIn;
+
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+    /**
+     * Each union branch fetches up to offset + size + 1 ids and all of them are bound into one IN list, so the
+     * reachable window is capped to keep that list well under driver bind limits (32767 on PostgreSQL). Deeper
+     * pages must use cursor pagination, whose branches only ever fetch size + 1 ids.
+     */
+    static final int MAX_UNION_WINDOW = 5_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<Loan> findSlice(Specification<Loan> specification, Pageable pageable) {
+        return SliceQueries.find(entityManager, Loan.class, specification, pageable, "book");
+    }
+
+    @Override
+    public Slice<Loan> findSlice(LoanQuery query, Pageable pageable) {
+        List<Specification<Loan>> branches = query.branches();
+        if (!query.isUnion()) {
+            return findSlice(branches.get(0), pageable);
+        }
+
+        if (pageable.isUnpaged() || pageable.getOffset() + pageable.getPageSize() > MAX_UNION_WINDOW) {
+            throw new BusinessException("Pages past " + MAX_UNION_WINDOW
+                    + " loans are not available for combined isbn/customer filters; use cursor pagination");
+        }
+        Sort sort = pageable.getSort().and(Sort.by("id"));
+        int limit = (int) pageable.getOffset() + pageable.getPageSize() + 1;
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Specification<Loan> branch : branches) {
+            ids.addAll(SliceQueries.findIds(entityManager, Loan.class, branch, sort, limit));
+        }
+        if (ids.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+        Slice<Loan> slice = findSlice(idIn(ids), PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+        return new SliceImpl<>(slice.getContent(), pageable, slice.hasNext());
+    }
+
+    @Override
+    public long count(LoanQuery query) {
+        List<Specification<Loan>> branches = query.branches();
+        long count = 0;
+        for (int mask = 1; mask < 1 << branches.size(); mask++) {
+            Specification<Loan> intersection = null;
+            for (int i = 0; i < branches.size(); i++) {
+                if ((mask & 1 << i) != 0) {
+                    intersection = intersection == null ? Specification.where(branches.get(i)) : intersection.and(branches.get(i));
+                }
+            }
+            long matches = SliceQueries.count(entityManager, Loan.class, intersection);
+            count += Integer.bitCount(mask) % 2 == 1 ? matches : -matches;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.util.Collection;
+
+public final class LoanSpecifications {
+
+    private LoanSpecifications() {
+    }
+
+    public static Specification<Loan> bookIsbn(String isbn) {
+        return isbn == null ? null : (root, query, cb) -> cb.equal(book(root).get("isbn"), isbn);
+    }
+
+    public static Specification<Loan> customer(String customer) {
+        return customer == null ? null : (root, query, cb) -> cb.equal(root.get("customer"), customer);
+    }
+
+    public static Specification<Loan> customerEmail(String email) {
+        return email == null ? null : (root, query, cb) -> cb.equal(root.get("customerEmail"), email);
+    }
+
+    public static Specification<Loan> loanDateBetween(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        if (to == null) {
+            return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("loanDate"), from);
+        }
+        if (from == null) {
+            return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("loanDate"), to);
+        }
+        return (root, query, cb) -> cb.between(root.get("loanDate"), from, to);
+    }
+
+    public static Specification<Loan> returned(Boolean returned) {
+        return returned == null ? null : (root, query, cb) -> cb.equal(root.get("returned"), returned);
+    }
+
+    public static Specification<Loan> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Loan> ofBook(Book book) {
+        return (root, query, cb) -> cb.equal(root.get("book"), book);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Join<Loan, Book> book(Root<Loan> root) {
+        for (Fetch<Loan, ?> fetch : root.getFetches()) {
+            if ("book".equals(fetch.getAttribute().getName())) {
+                return (Join<Loan, Book>) fetch;
+            }
+        }
+        return root.join("book");
+    }
+}
@@ -0,0 +1,50 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.OutboxMessage;
+import br.com.libraryapi.model.entity.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+    String CLAIMABLE = "((m.status = br.com.libraryapi.model.entity.OutboxStatus.PENDING and m.nextAttemptAt <= :now)" +
+            " or (m.status = br.com.libraryapi.model.entity.OutboxStatus.PROCESSING and m.claimedAt < :staleBefore))";
+
+    @Query("select m.id from OutboxMessage m where " + CLAIMABLE + " and mod(m.id, :partitions) = :partition order by m.id")
+    List<Long> findClaimableIds(@Param("now") Instant now, @Param("staleBefore") Instant staleBefore,
+                                @Param("partition") int partition, @Param("partitions") int partitions, Pageable pageable);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = br.com.libraryapi.model.entity.OutboxStatus.PROCESSING," +
+            " m.claimToken = :token, m.claimedAt = :now where m.id in :ids and " + CLAIMABLE)
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token,
+              @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    List<OutboxMessage> findByClaimToken(String claimToken);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = br.com.libraryapi.model.entity.OutboxStatus.SENT," +
+            " m.sentAt = :sentAt, m.claimToken = null where m.id in :ids and m.claimToken = :token")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("update OutboxMessage m set m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt," +
+            " m.lastError = :lastError, m.claimToken = null where m.id = :id and m.claimToken = :token")
+    int markFailed(@Param("id") Long id, @Param("token") String token, @Param("status") OutboxStatus status,
+                   @Param("attempts") int attempts, @Param("nextAttemptAt") Instant nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("delete from OutboxMessage m where m.status = br.com.libraryapi.model.entity.OutboxStatus.SENT and m.sentAt < :before")
+    int deleteSentBefore(@Param("before") Instant before);
+
+    long countByStatus(OutboxStatus status);
+}
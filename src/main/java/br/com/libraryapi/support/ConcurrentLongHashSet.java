@@ -0,0 +1,221 @@
+package br.com.libraryapi.support;
+
+import java.util.concurrent.locks.StampedLock;
+
+public class ConcurrentLongHashSet {
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    public ConcurrentLongHashSet(int expectedSize, int concurrency) {
+        int segmentCount = 1;
+        while (segmentCount < concurrency) {
+            segmentCount <<= 1;
+        }
+        int perSegment = Math.max(8, expectedSize / segmentCount);
+
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    public boolean contains(long value) {
+        long hash = mix(value);
+        return segment(hash).contains(value, hash);
+    }
+
+    public boolean add(long value) {
+        long hash = mix(value);
+        return segment(hash).add(value, hash);
+    }
+
+    public boolean remove(long value) {
+        long hash = mix(value);
+        return segment(hash).remove(value, hash);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static long mix(long value) {
+        long h = value * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final int initialCapacity;
+        private long[] table;
+        private int size;
+        private boolean containsEmpty;
+
+        private Segment(int expectedSize) {
+            int capacity = 16;
+            while (capacity * LOAD_FACTOR < expectedSize) {
+                capacity <<= 1;
+            }
+            this.initialCapacity = capacity;
+            this.table = new long[capacity];
+        }
+
+        boolean contains(long value, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                boolean found = find(value, hash);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(value, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private boolean find(long value, long hash) {
+            if (value == EMPTY) {
+                return containsEmpty;
+            }
+            long[] current = table;
+            int mask = current.length - 1;
+            int index = (int) hash & mask;
+            for (int probes = 0; probes < current.length; probes++) {
+                long slot = current[index];
+                if (slot == value) {
+                    return true;
+                }
+                if (slot == EMPTY) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        boolean add(long value, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                if (value == EMPTY) {
+                    boolean added = !containsEmpty;
+                    containsEmpty = true;
+                    return added;
+                }
+                if (insert(table, value, hash)) {
+                    size++;
+                    if (size > table.length * LOAD_FACTOR) {
+                        resize(table.length << 1);
+                    }
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long value, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                if (value == EMPTY) {
+                    boolean removed = containsEmpty;
+                    containsEmpty = false;
+                    return removed;
+                }
+                int mask = table.length - 1;
+                int index = (int) hash & mask;
+                while (table[index] != EMPTY) {
+                    if (table[index] == value) {
+                        shiftBack(index);
+                        size--;
+                        return true;
+                    }
+                    index = (index + 1) & mask;
+                }
+                return false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        long size() {
+            long stamp = lock.readLock();
+            try {
+                return size + (containsEmpty ? 1 : 0);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new long[initialCapacity];
+                size = 0;
+                containsEmpty = false;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void shiftBack(int hole) {
+            int mask = table.length - 1;
+            int index = (hole + 1) & mask;
+            while (table[index] != EMPTY) {
+                int home = (int) mix(table[index]) & mask;
+                boolean movable = hole <= index
+                        ? home <= hole || home > index
+                        : home <= hole && home > index;
+                if (movable) {
+                    table[hole] = table[index];
+                    hole = index;
+                }
+                index = (index + 1) & mask;
+            }
+            table[hole] = EMPTY;
+        }
+
+        private void resize(int capacity) {
+            long[] resized = new long[capacity];
+            for (long value : table) {
+                if (value != EMPTY) {
+                    insert(resized, value, mix(value));
+                }
+            }
+            table = resized;
+        }
+
+        private static boolean insert(long[] target, long value, long hash) {
+            int mask = target.length - 1;
+            int index = (int) hash & mask;
+            while (target[index] != EMPTY) {
+                if (target[index] == value) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            target[index] = value;
+            return true;
+        }
+    }
+}
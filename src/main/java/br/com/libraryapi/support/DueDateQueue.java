@@ -0,0 +1,68 @@
+package br.com.libraryapi.support;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class DueDateQueue {
+    private final NavigableMap<Long, Set<Long>> buckets = new TreeMap<>();
+    private final Map<Long, Long> dueDays = new HashMap<>();
+
+    public synchronized void schedule(long id, LocalDate dueDate) {
+        long dueDay = dueDate.toEpochDay();
+        Long previous = dueDays.put(id, dueDay);
+        if (previous != null) {
+            if (previous == dueDay) {
+                return;
+            }
+            removeFromBucket(id, previous);
+        }
+        buckets.computeIfAbsent(dueDay, day -> new LinkedHashSet<>()).add(id);
+    }
+
+    public synchronized boolean cancel(long id) {
+        Long dueDay = dueDays.remove(id);
+        if (dueDay == null) {
+            return false;
+        }
+        removeFromBucket(id, dueDay);
+        return true;
+    }
+
+    public synchronized List<Long> pollDue(LocalDate today) {
+        NavigableMap<Long, Set<Long>> due = buckets.headMap(today.toEpochDay(), true);
+        List<Long> ids = new ArrayList<>();
+        due.values().forEach(ids::addAll);
+        ids.forEach(dueDays::remove);
+        due.clear();
+        return ids;
+    }
+
+    public synchronized Optional<LocalDate> nextDueDate() {
+        return buckets.isEmpty() ? Optional.empty() : Optional.of(LocalDate.ofEpochDay(buckets.firstKey()));
+    }
+
+    public synchronized int size() {
+        return dueDays.size();
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        dueDays.clear();
+    }
+
+    private void removeFromBucket(long id, long dueDay) {
+        Set<Long> bucket = buckets.get(dueDay);
+        bucket.remove(id);
+        if (bucket.isEmpty()) {
+            buckets.remove(dueDay);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.libraryapi.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class RateLimiter {
+    private final long intervalNanos;
+    private long nextFree = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    public void acquire(int permits) {
+        long wait = reserve(permits);
+        while (wait > 0) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            wait -= System.nanoTime() - start;
+        }
+    }
+
+    private synchronized long reserve(int permits) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long start = Math.max(now, nextFree);
+        nextFree = start + permits * intervalNanos;
+        return start - now;
+    }
+}
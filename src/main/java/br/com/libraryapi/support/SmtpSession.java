@@ -0,0 +1,290 @@
+package br.com.libraryapi.support;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class SmtpSession implements Closeable {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] END_OF_DATA = {'.', '\r', '\n'};
+
+    private final Set<String> extensions = new HashSet<>();
+    private Socket socket;
+    private InputStream input;
+    private OutputStream output;
+
+    private SmtpSession(Socket socket) throws IOException {
+        bind(socket);
+    }
+
+    public static SmtpSession open(String host, int port, String heloName, boolean startTls,
+                                   String username, String password, int connectTimeoutMillis,
+                                   int readTimeoutMillis) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.setTcpNoDelay(true);
+            SmtpSession session = new SmtpSession(socket);
+            session.expect(session.readReply(), 220);
+            session.ehlo(heloName);
+            if (startTls) {
+                if (!session.supports("STARTTLS")) {
+                    throw new SmtpException(0, "Server does not support STARTTLS");
+                }
+                session.command("STARTTLS", 220);
+                SSLSocket tls = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                        .createSocket(session.socket, host, port, true);
+                tls.startHandshake();
+                session.bind(tls);
+                session.ehlo(heloName);
+            }
+            if (username != null && !username.isEmpty()) {
+                String credentials = '\0' + username + '\0' + password;
+                session.command("AUTH PLAIN " + Base64.getEncoder()
+                        .encodeToString(credentials.getBytes(StandardCharsets.UTF_8)), 235);
+            }
+            return session;
+        } catch (IOException | RuntimeException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    public boolean supports(String extension) {
+        return extensions.contains(extension);
+    }
+
+    public List<Rejection> send(String from, List<String> recipients, byte[] content) throws IOException {
+        List<Rejection> rejected = new ArrayList<>();
+        Reply data;
+        if (supports("PIPELINING")) {
+            write("MAIL FROM:<" + from + ">");
+            for (String recipient : recipients) {
+                write("RCPT TO:<" + recipient + ">");
+            }
+            write("DATA");
+            output.flush();
+
+            Reply mail = readReply();
+            for (String recipient : recipients) {
+                Reply rcpt = readReply();
+                if (!rcpt.isPositive()) {
+                    rejected.add(new Rejection(recipient, rcpt.code, rcpt.text));
+                }
+            }
+            data = readReply();
+            if (!mail.isPositive()) {
+                abort(data);
+                throw new SmtpException(mail.code, mail.text);
+            }
+        } else {
+            command("MAIL FROM:<" + from + ">", 250);
+            for (String recipient : recipients) {
+                Reply rcpt = command("RCPT TO:<" + recipient + ">");
+                if (!rcpt.isPositive()) {
+                    rejected.add(new Rejection(recipient, rcpt.code, rcpt.text));
+                }
+            }
+            if (rejected.size() == recipients.size()) {
+                command("RSET", 250);
+                return rejected;
+            }
+            data = command("DATA");
+        }
+
+        if (data.code != 354) {
+            abort(data);
+            if (rejected.size() == recipients.size()) {
+                return rejected;
+            }
+            throw new SmtpException(data.code, data.text);
+        }
+        writeData(content);
+        expect(readReply(), 250);
+        return rejected;
+    }
+
+    public void noop() throws IOException {
+        command("NOOP", 250);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            write("QUIT");
+            output.flush();
+            readReply();
+        } catch (IOException ignored) {
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void bind(Socket socket) throws IOException {
+        this.socket = socket;
+        this.input = new BufferedInputStream(socket.getInputStream());
+        this.output = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+    }
+
+    private void ehlo(String heloName) throws IOException {
+        Reply reply = command("EHLO " + heloName, 250);
+        extensions.clear();
+        for (int i = 1; i < reply.lines.size(); i++) {
+            String line = reply.lines.get(i);
+            int space = line.indexOf(' ');
+            extensions.add((space < 0 ? line : line.substring(0, space)).toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private void abort(Reply data) throws IOException {
+        if (data.code == 354) {
+            writeData(new byte[0]);
+            readReply();
+        }
+        command("RSET", 250);
+    }
+
+    private void writeData(byte[] content) throws IOException {
+        boolean lineStart = true;
+        for (byte b : content) {
+            if (lineStart && b == '.') {
+                output.write('.');
+            }
+            output.write(b);
+            lineStart = b == '\n';
+        }
+        if (!lineStart) {
+            output.write(CRLF);
+        }
+        output.write(END_OF_DATA);
+        output.flush();
+    }
+
+    private Reply command(String command, int expected) throws IOException {
+        return expect(command(command), expected);
+    }
+
+    private Reply command(String command) throws IOException {
+        write(command);
+        output.flush();
+        return readReply();
+    }
+
+    private void write(String command) throws IOException {
+        output.write(command.getBytes(StandardCharsets.US_ASCII));
+        output.write(CRLF);
+    }
+
+    private Reply expect(Reply reply, int expected) throws SmtpException {
+        if (reply.code != expected) {
+            throw new SmtpException(reply.code, reply.text);
+        }
+        return reply;
+    }
+
+    private Reply readReply() throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        do {
+            line = readLine();
+            if (line.length() < 3) {
+                throw new SmtpException(0, "Malformed reply: " + line);
+            }
+            lines.add(line.length() > 4 ? line.substring(4) : "");
+        } while (line.length() > 3 && line.charAt(3) == '-');
+        int code;
+        try {
+            code = Integer.parseInt(line.substring(0, 3));
+        } catch (NumberFormatException e) {
+            throw new SmtpException(0, "Malformed reply: " + line);
+        }
+        return new Reply(code, lines, line);
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                throw new EOFException("Connection closed by SMTP server");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    public static class SmtpException extends IOException {
+        private final int code;
+
+        public SmtpException(int code, String message) {
+            super(message);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+
+    public static class Rejection {
+        private final String recipient;
+        private final int code;
+        private final String text;
+
+        Rejection(String recipient, int code, String text) {
+            this.recipient = recipient;
+            this.code = code;
+            this.text = text;
+        }
+
+        public String getRecipient() {
+            return recipient;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public boolean isTemporary() {
+            return code >= 400 && code < 500;
+        }
+    }
+
+    private static class Reply {
+        private final int code;
+        private final List<String> lines;
+        private final String text;
+
+        Reply(int code, List<String> lines, String text) {
+            this.code = code;
+            this.lines = lines;
+            this.text = text;
+        }
+
+        boolean isPositive() {
+            return code >= 200 && code < 300;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Creates the pooled book id sequence past the ids already handed out by the identity column, so databases
+ * adopted through baseline-on-migrate keep inserting without key collisions.
+ */
+public class V7__book_sequence extends BaseJavaMigration {
+    private static final long ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long maxId;
+            try (ResultSet result = statement.executeQuery("select coalesce(max(id), 0) from book")) {
+                result.next();
+                maxId = result.getLong(1);
+            }
+            statement.execute("create sequence book_seq start with " + (maxId + ALLOCATION_SIZE)
+                    + " increment by " + ALLOCATION_SIZE);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+create table book (
+    id bigint generated by default as identity,
+    author varchar(255),
+    isbn varchar(255),
+    title varchar(255),
+    constraint pk_book primary key (id)
+);
+
+create table loan (
+    id bigint generated by default as identity,
+    customer varchar(255),
+    customer_email varchar(255),
+    loan_date date,
+    returned boolean,
+    book_id bigint,
+    constraint pk_loan primary key (id),
+    constraint fk_loan_book foreign key (book_id) references book (id)
+);
@@ -0,0 +1,3 @@
+create index ix_loan_book_returned on loan (book_id, returned);
+create index ix_loan_customer_email on loan (customer_email, returned, loan_date);
+create index ix_loan_customer on loan (customer);
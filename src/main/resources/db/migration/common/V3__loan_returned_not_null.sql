@@ -0,0 +1,4 @@
+update loan set returned = false where returned is null;
+
+alter table loan alter column returned set default false;
+alter table loan alter column returned set not null;
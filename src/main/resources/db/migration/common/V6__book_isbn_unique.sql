@@ -0,0 +1 @@
+alter table book add constraint uk_book_isbn unique (isbn);
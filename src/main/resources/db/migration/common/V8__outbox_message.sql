@@ -0,0 +1,19 @@
+create sequence outbox_message_seq start with 1 increment by 50;
+
+create table outbox_message (
+    id bigint not null,
+    attempts integer not null,
+    claim_token varchar(36),
+    claimed_at timestamp,
+    created_at timestamp not null,
+    last_error varchar(1000),
+    message varchar(16000) not null,
+    next_attempt_at timestamp not null,
+    recipient varchar(255) not null,
+    sent_at timestamp,
+    status varchar(16) not null,
+    constraint pk_outbox_message primary key (id)
+);
+
+create index ix_outbox_message_status on outbox_message (status, next_attempt_at);
+create index ix_outbox_message_claim on outbox_message (claim_token);
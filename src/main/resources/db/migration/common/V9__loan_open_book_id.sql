@@ -0,0 +1,9 @@
+alter table loan add column open_book_id bigint;
+
+-- Only the most recent open loan of a book keeps the reservation, so legacy duplicates do not break the unique key.
+update loan set open_book_id = book_id
+where returned = false
+  and id = (select max(open_loan.id) from loan open_loan
+            where open_loan.book_id = loan.book_id and open_loan.returned = false);
+
+alter table loan add constraint uk_loan_open_book_id unique (open_book_id);
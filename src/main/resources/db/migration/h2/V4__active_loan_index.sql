@@ -0,0 +1 @@
+create index ix_loan_active_due on loan (returned, loan_date, customer_email);
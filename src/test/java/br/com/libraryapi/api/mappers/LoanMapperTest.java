@@ -0,0 +1,64 @@
+package br.com.libraryapi.api.mappers;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.api.dto.ReturnedLoanDTO;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanMapperTest {
+
+    BookMapper bookMapper = new BookMapper();
+    LoanMapper loanMapper = new LoanMapper(bookMapper);
+
+    @Test
+    @DisplayName("Deve converter um livro em DTO e de volta")
+    public void bookRoundTripTest() {
+        Book book = Book.builder().id(1L).title("Vingadores").author("Jorge").isbn("152478").build();
+
+        BookDTO dto = bookMapper.toDto(book);
+        Book entity = bookMapper.toEntity(dto);
+
+        assertThat(dto.getId()).isEqualTo(1L);
+        assertThat(dto.getTitle()).isEqualTo("Vingadores");
+        assertThat(dto.getAuthor()).isEqualTo("Jorge");
+        assertThat(dto.getIsbn()).isEqualTo("152478");
+        assertThat(entity.getId()).isEqualTo(1L);
+        assertThat(entity.getTitle()).isEqualTo("Vingadores");
+        assertThat(entity.getAuthor()).isEqualTo("Jorge");
+        assertThat(entity.getIsbn()).isEqualTo("152478");
+    }
+
+    @Test
+    @DisplayName("Deve converter um empréstimo em DTO com o livro")
+    public void loanToDtoTest() {
+        Book book = Book.builder().id(1L).title("Vingadores").author("Jorge").isbn("152478").build();
+        Loan loan = Loan.builder().id(2L).customer("Fulano").customerEmail("fulano@email.com")
+                .loanDate(LocalDate.now()).book(book).build();
+
+        LoanDTO dto = loanMapper.toDto(loan);
+
+        assertThat(dto.getId()).isEqualTo(2L);
+        assertThat(dto.getCustomer()).isEqualTo("Fulano");
+        assertThat(dto.getEmail()).isEqualTo("fulano@email.com");
+        assertThat(dto.getIsbn()).isEqualTo("152478");
+        assertThat(dto.getBook().getId()).isEqualTo(1L);
+        assertThat(dto.getBook().getTitle()).isEqualTo("Vingadores");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar a devolução no empréstimo")
+    public void applyReturnedTest() {
+        Loan loan = Loan.builder().id(1L).build();
+
+        loanMapper.applyReturned(ReturnedLoanDTO.builder().returned(true).build(), loan);
+
+        assertThat(loan.getReturned()).isTrue();
+    }
+}
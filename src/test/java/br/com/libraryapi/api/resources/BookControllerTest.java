@@ -1,40 +1,64 @@
 package br.com.libraryapi.api.resources;
 
 import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.BookImportErrorDTO;
+import br.com.libraryapi.api.dto.BookImportReportDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
+import br.com.libraryapi.api.services.BookImportService;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.ExportService;
 import br.com.libraryapi.api.services.LoanService;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.Keyset;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
 @AutoConfigureMockMvc
 public class BookControllerTest {
 
@@ -43,12 +67,79 @@ public class BookControllerTest {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     BookService service;
 
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    BookImportService bookImportService;
+
+    @MockBean
+    ExportService exportService;
+
+    @Test
+    @DisplayName("Deve exportar os livros em NDJSON")
+    public void exportBooksNdjsonTest() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportBooks(Mockito.eq(ExportService.Format.NDJSON), Mockito.any());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export")).accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote a partir de NDJSON")
+    public void bulkNdjsonTest() throws Exception {
+        BookImportReportDTO report = new BookImportReportDTO(1, 1, Collections.singletonList(
+                new BookImportErrorDTO(2, "123", Collections.singletonList("Isbn já cadastrado."))));
+        BDDMockito.given(bookImportService.importNdjson(Mockito.any())).willReturn(report);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/bulk"))
+                .contentType("application/x-ndjson")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"456\"}\n");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("errors[0].line").value(2))
+                .andExpect(jsonPath("errors[0].errors[0]").value("Isbn já cadastrado."));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote a partir de CSV")
+    public void bulkCsvTest() throws Exception {
+        BDDMockito.given(bookImportService.importCsv(Mockito.any()))
+                .willReturn(new BookImportReportDTO(1, 0, Collections.emptyList()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/bulk"))
+                .contentType("text/csv")
+                .accept(MediaType.APPLICATION_JSON)
+                .content("title,author,isbn\nDuna,Frank,456\n");
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("imported").value(1))
+                .andExpect(jsonPath("errors", hasSize(0)));
+    }
+
     @Test
     @DisplayName("Deve criar um livro com sucesso")
     public void createBookTest() throws Exception {
@@ -112,6 +203,7 @@ public class BookControllerTest {
     public void getBookDetailsTest() throws Exception {
         Long id = 1L;
         Book book = createBookWithID(id);
+        book.setVersion(3L);
         BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -120,10 +212,50 @@ public class BookControllerTest {
 
         mvc.perform(request)
             .andExpect(status().isOk())
+            .andExpect( header().string(HttpHeaders.ETAG, "\"3\"") )
             .andExpect( jsonPath("id").value(book.getId()) )
             .andExpect( jsonPath("title").value(book.getTitle()) )
             .andExpect( jsonPath("author").value(book.getAuthor()) )
             .andExpect( jsonPath("isbn").value(book.getIsbn()) );
+
+        Mockito.verify(service, Mockito.never()).getVersion(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve gerar o ETag a partir da versão do livro retornado")
+    public void getBookETagFromBodyTest() throws Exception {
+        Long id = 1L;
+        Book book = createBookWithID(id);
+        book.setVersion(2L);
+        BDDMockito.given(service.getVersion(id)).willReturn(Optional.of(3L));
+        BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"1\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+            .andExpect(status().isOk())
+            .andExpect( header().string(HttpHeaders.ETAG, "\"2\"") );
+    }
+
+    @Test
+    @DisplayName("Deve retornar not modified sem carregar o livro quando a versão não mudou")
+    public void getBookNotModifiedTest() throws Exception {
+        Long id = 1L;
+        BDDMockito.given(service.getVersion(id)).willReturn(Optional.of(3L));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/" + id))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+            .andExpect(status().isNotModified())
+            .andExpect( header().string(HttpHeaders.ETAG, "\"3\"") );
+
+        Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
     }
 
     @Test
@@ -132,6 +264,7 @@ public class BookControllerTest {
         long id = 1;
 
         BDDMockito.given(service.getById(Mockito.any())).willReturn(Optional.empty());
+        double notFound = meterRegistry.get("library.not.found").counter().count();
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(BOOK_API.concat("/" + id))
@@ -139,6 +272,8 @@ public class BookControllerTest {
 
         mvc.perform(request)
             .andExpect(status().isNotFound());
+
+        assertThat(meterRegistry.get("library.not.found").counter().count()).isEqualTo(notFound + 1);
     }
 
     @Test
@@ -176,6 +311,7 @@ public class BookControllerTest {
         BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.of(bookWillBeUpdated));
         Book bookUpdated = createBookWithID(id);
         BDDMockito.given(service.update(bookWillBeUpdated)).willReturn(bookUpdated);
+        bookUpdated.setVersion(1L);
 
         // When
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -187,12 +323,34 @@ public class BookControllerTest {
         // Then
         mvc.perform(request)
                 .andExpect(status().isOk())
+                .andExpect( header().string(HttpHeaders.ETAG, "\"1\"") )
                 .andExpect( jsonPath("id").value(bookUpdated.getId()) )
                 .andExpect( jsonPath("title").value(bookUpdated.getTitle()) )
                 .andExpect( jsonPath("author").value(bookUpdated.getAuthor()) )
                 .andExpect( jsonPath("isbn").value(bookUpdated.getIsbn()) );
     }
 
+    @Test
+    @DisplayName("Deve recusar a atualização de um livro modificado por outra requisição")
+    public void updateModifiedBookTest() throws Exception {
+        Long id = 1L;
+        String json = new ObjectMapper().writeValueAsString(createNewBook());
+        Book book = createBookWithID(id);
+        book.setVersion(2L);
+        BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.of(book));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .put(BOOK_API.concat("/" + id))
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request).andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+    }
+
     @Test
     @DisplayName("Deve retornar 404 ao tentar atualizar um livro inexistente")
     public void updateInexistentBookTest() throws Exception {
@@ -233,6 +391,104 @@ public class BookControllerTest {
                 .andExpect( jsonPath( "pageable.pageNumber" ).value(0) );
     }
 
+    @Test
+    @DisplayName("Deve retornar o total de livros informado pelo serviço")
+    public void findBooksTotalElementsTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").author("Ele").title("Os estranhos").build();
+        BDDMockito.given( service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)) )
+                .willReturn( new PageImpl<Book>(Collections.singletonList(book), PageRequest.of(0, 1), 42) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?author=Ele&page=0&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("totalElements").value(42) )
+                .andExpect( jsonPath("totalPages").value(42) );
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros por cursor")
+    public void findBooksByCursorTest() throws Exception {
+        Book first = Book.builder().id(1L).isbn("123").author("Ele").title("Os estranhos").build();
+        Book second = Book.builder().id(2L).isbn("456").author("Ele").title("Os outros").build();
+        BDDMockito.given( service.findAfter(Mockito.any(Book.class), Mockito.any(Keyset.class), Mockito.anyInt()) )
+                .willReturn( new SliceImpl<Book>(Arrays.asList(first, second), PageRequest.of(0, 2), true) );
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?author=Ele&cursor=&size=2&sort=title"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", hasSize(2)) )
+                .andExpect( jsonPath("size").value(2) )
+                .andExpect( jsonPath("nextCursor").value(Keyset.first(Sort.by("title")).next(second).encode()) );
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro quando o cursor for inválido")
+    public void findBooksByInvalidCursorTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=inv@lido"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("Invalid cursor") );
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro quando o cursor for usado com outra ordenação")
+    public void findBooksByCursorWithDifferentSortTest() throws Exception {
+        String cursor = Keyset.first(Sort.by("title")).next(createBookWithID(1L)).encode();
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=" + cursor + "&sort=author"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect( status().isBadRequest() )
+                .andExpect( jsonPath("errors[0]").value("Cursor does not match the requested sort") );
+
+        Mockito.verify(service, Mockito.never()).findAfter(Mockito.any(Book.class), Mockito.any(Keyset.class), Mockito.anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve gerar o ETag dos empréstimos a partir da página carregada sem consultar o agregado")
+    public void loansByBookETagFromPageTest() throws Exception {
+        Book book = createBookWithID(1L);
+        book.setVersion(3L);
+        Loan first = Loan.builder().id(10L).book(book).customer("Fulano").version(1L).build();
+        Loan second = Loan.builder().id(12L).book(book).customer("Ciclano").version(2L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getLoansByBook(Mockito.eq(book), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(first, second), PageRequest.of(0, 10), 2));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans?page=0&size=10")))
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", hasSize(2)) )
+                .andExpect( header().string(HttpHeaders.ETAG, ETags.of(3L, 2, 3L, 12L)) );
+
+        Mockito.verify(service, Mockito.never()).getVersion(Mockito.anyLong());
+        Mockito.verify(loanService, Mockito.never()).getLoansVersionByBook(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve responder not modified aos empréstimos sem carregar a página")
+    public void loansByBookNotModifiedTest() throws Exception {
+        BDDMockito.given(service.getVersion(1L)).willReturn(Optional.of(3L));
+        BDDMockito.given(loanService.getLoansVersionByBook(1L)).willReturn(new LoansVersionDTO(2, 3, 12));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans"))
+                        .header(HttpHeaders.IF_NONE_MATCH, ETags.of(3L, 2, 3L, 12L)))
+                .andExpect( status().isNotModified() );
+
+        Mockito.verify(service, Mockito.never()).getById(Mockito.anyLong());
+        Mockito.verify(loanService, Mockito.never()).getLoansByBook(Mockito.any(), Mockito.any());
+    }
+
     private BookDTO createNewBook() {
         return BookDTO.builder().author("Jorge").title("Vingadores").isbn("152478").build();
     }
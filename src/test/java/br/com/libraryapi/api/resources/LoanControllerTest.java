@@ -2,12 +2,16 @@ package br.com.libraryapi.api.resources;
 
 import br.com.libraryapi.api.dto.LoanDTO;
 import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.dto.LoanReturnsDTO;
+import br.com.libraryapi.api.dto.LoanReturnsReportDTO;
 import br.com.libraryapi.api.dto.ReturnedLoanDTO;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.ExportService;
 import br.com.libraryapi.api.services.LoanService;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.Keyset;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -16,29 +20,39 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Optional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @WebMvcTest(controllers = LoanController.class)
+@ImportAutoConfiguration({MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class})
 public class LoanControllerTest {
 
     static final String LOAN_API = "/api/loans";
@@ -52,6 +66,28 @@ public class LoanControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    ExportService exportService;
+
+    @Test
+    @DisplayName("Deve exportar os empréstimos em CSV")
+    public void exportLoansCsvTest() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("id,customer\n1,Fulano\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportLoans(Mockito.eq(ExportService.Format.CSV), Mockito.any());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/export")).accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("id,customer\n1,Fulano\n"));
+    }
+
     @Test
     @DisplayName("Deve realizar um novo emprestimo")
     public void createLoanTest() throws Exception {
@@ -130,11 +166,29 @@ public class LoanControllerTest {
     @Test
     @DisplayName("Deve retornar um livro")
     public void returnBookTest() throws Exception {
-        Loan loan = Loan.builder().id(1L).build();
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
 
         String json = new ObjectMapper().writeValueAsString(dto);
 
+        BDDMockito.given( loanService.returnLoan(1L) ).willReturn(LoanService.ReturnResult.RETURNED);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request).andExpect(status().isOk());
+
+        Mockito.verify(loanService, Mockito.times(1)).returnLoan(1L);
+        Mockito.verify(loanService, Mockito.never()).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve desfazer a devolução de um livro")
+    public void undoReturnBookTest() throws Exception {
+        Loan loan = Loan.builder().id(1L).returned(true).build();
+        String json = new ObjectMapper().writeValueAsString(ReturnedLoanDTO.builder().returned(false).build());
+
         BDDMockito.given( loanService.getById(1L) ).willReturn(Optional.of(loan));
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
@@ -147,13 +201,34 @@ public class LoanControllerTest {
         Mockito.verify(loanService, Mockito.times(1)).update(loan);
     }
 
+    @Test
+    @DisplayName("Deve devolver vários empréstimos por id ou isbn")
+    public void returnAllTest() throws Exception {
+        LoanReturnsDTO dto = LoanReturnsDTO.builder().ids(Arrays.asList(1L, 2L)).isbns(Collections.singletonList("123")).build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given( loanService.returnAll(dto.getIds(), dto.getIsbns()) )
+                .willReturn(new LoanReturnsReportDTO(2, Collections.singletonList(2L), Collections.emptyList()));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(LOAN_API.concat("/returns"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("returned").value(2))
+                .andExpect(jsonPath("unmatchedIds[0]").value(2))
+                .andExpect(jsonPath("unmatchedIsbns", Matchers.hasSize(0)));
+    }
+
     @Test
     @DisplayName("Deve retornar 404 quando tentar devolver um livro inexistente")
     public void returnInexistentBookTest() throws Exception {
         ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        BDDMockito.given( loanService.getById(1L) ).willReturn(Optional.empty());
+        BDDMockito.given( loanService.returnLoan(1L) ).willReturn(LoanService.ReturnResult.NOT_FOUND);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
                 .accept(MediaType.APPLICATION_JSON)
@@ -163,6 +238,22 @@ public class LoanControllerTest {
         mvc.perform(request).andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve responder 200 ao repetir a devolução de um empréstimo já devolvido")
+    public void returnAlreadyReturnedBookTest() throws Exception {
+        ReturnedLoanDTO dto = ReturnedLoanDTO.builder().returned(true).build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        BDDMockito.given( loanService.returnLoan(1L) ).willReturn(LoanService.ReturnResult.ALREADY_RETURNED);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.patch(LOAN_API.concat("/1"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request).andExpect(status().isOk());
+    }
+
     @Test
     @DisplayName("Deve filtrar empréstimos")
     public void findLoansTest() throws Exception {
@@ -192,4 +283,63 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve receber os filtros de email, período e devolução")
+    public void findLoansByOptionalFiltersTest() throws Exception {
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?email=fulano@email.com&loanDateFrom=2020-10-01&loanDateTo=2020-10-31&returned=false"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request).andExpect(status().isOk());
+
+        LoanFilterDTO expected = LoanFilterDTO.builder().email("fulano@email.com").loanDateFrom(LocalDate.of(2020, 10, 1))
+                .loanDateTo(LocalDate.of(2020, 10, 31)).returned(false).build();
+        Mockito.verify(loanService).find(Mockito.eq(expected), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem calcular o total")
+    public void findLoansWithoutCountTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder().id(1L).book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        BDDMockito.given(loanService.findSlice(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<>(Collections.singletonList(loan), PageRequest.of(0, 10), true));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Fulano&count=false&page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("last").value(false))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos por cursor")
+    public void findLoansByCursorTest() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        Loan loan = Loan.builder().id(1L).book(book).loanDate(LocalDate.now()).customer("Fulano").build();
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.any(Keyset.class), Mockito.anyInt()))
+                .willReturn(new SliceImpl<>(Collections.singletonList(loan), PageRequest.of(0, 10), false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?isbn=123&cursor=&size=10"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].book.isbn").value("123"))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
+
 }
@@ -0,0 +1,121 @@
+package br.com.libraryapi.api.resources;
+
+import br.com.libraryapi.api.dto.LoanDTO;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import br.com.libraryapi.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SqlStatementCounter.class)
+@SpringBootTest(properties = SqlStatementCounter.PROPERTY)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class RequestStatementCountTest {
+    private static final int LOANS = 10;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    String prefix;
+
+    @BeforeEach
+    public void setUp() {
+        prefix = UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos com livros de origens diferentes sem consultas por item")
+    public void findLoansWithoutNPlusOneTest() throws Exception {
+        for (int i = 0; i < LOANS; i++) {
+            persistLoan(persistBook(prefix + "-" + i), prefix);
+        }
+
+        SqlStatementCounter.reset();
+        mvc.perform(MockMvcRequestBuilders.get("/api/loans?customer=" + prefix + "&size=" + LOANS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(LOANS)));
+
+        SqlStatementCounter.assertSelectsAtMost(2);
+    }
+
+    @Test
+    @DisplayName("Deve listar os empréstimos de um livro com um número fixo de consultas")
+    public void findLoansByBookTest() throws Exception {
+        Book book = persistBook(prefix);
+        for (int i = 0; i < LOANS; i++) {
+            persistLoan(book, prefix + "-" + i);
+        }
+
+        SqlStatementCounter.reset();
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId() + "/loans?size=" + LOANS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(LOANS)));
+
+        SqlStatementCounter.assertSelectsAtMost(3);
+    }
+
+    @Test
+    @DisplayName("Deve responder not modified consultando apenas a versão do livro")
+    public void getBookNotModifiedTest() throws Exception {
+        Book book = persistBook(prefix);
+
+        SqlStatementCounter.reset();
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/" + book.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, ETags.of(book.getVersion())))
+                .andExpect(status().isNotModified());
+
+        SqlStatementCounter.assertTotalAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar um empréstimo com uma consulta e uma inserção")
+    public void createLoanTest() throws Exception {
+        persistBook(prefix);
+        LoanDTO dto = LoanDTO.builder().isbn(prefix).customer(prefix).email(prefix + "@email.com").build();
+
+        SqlStatementCounter.reset();
+        mvc.perform(MockMvcRequestBuilders.post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+
+        SqlStatementCounter.assertSelectsAtMost(1);
+        SqlStatementCounter.assertTotalAtMost(2);
+    }
+
+    private Book persistBook(String isbn) {
+        return bookRepository.save(Book.builder().title("Livro " + isbn).author("João").isbn(isbn).build());
+    }
+
+    private Loan persistLoan(Book book, String customer) {
+        return loanRepository.save(Loan.builder().book(book).customer(customer).customerEmail(customer + "@email.com")
+                .loanDate(LocalDate.now()).returned(true).build());
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.libraryapi.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class MetricsEndpointTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Deve expor as métricas de endpoints, serviços e repositórios no formato do Prometheus")
+    public void prometheusScrapeTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/books/-1")).andExpect(status().isNotFound());
+
+        String scrape = mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("status=\"404\",uri=\"/api/books/{id}\"")
+                .contains("http_server_requests_seconds_bucket")
+                .contains("library_service_seconds_bucket{class=\"CachingBookService\",exception=\"none\",method=\"getVersion\"")
+                .contains("library_service_seconds_bucket{class=\"BookServiceImpl\",exception=\"none\",method=\"getVersion\"")
+                .contains("library_repository_seconds_bucket{class=\"BookRepository\",exception=\"none\",method=\"findVersionById\"")
+                .contains("library_not_found_total")
+                .contains("library_loans_active")
+                .contains("library_loans_overdue");
+    }
+}
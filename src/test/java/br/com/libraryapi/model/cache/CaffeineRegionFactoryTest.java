@@ -0,0 +1,35 @@
+package br.com.libraryapi.model.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaffeineRegionFactoryTest {
+
+    @Test
+    @DisplayName("Deve usar um gerenciador de cache próprio para cada session factory")
+    public void cacheManagerPerFactoryTest() {
+        CacheManager first = new CaffeineRegionFactory().resolveCacheManager(null, Collections.emptyMap());
+        CacheManager second = new CaffeineRegionFactory().resolveCacheManager(null, Collections.emptyMap());
+        try {
+            Cache<Object, Object> firstBooks = first.createCache("Book", new MutableConfiguration<>());
+            Cache<Object, Object> secondBooks = second.createCache("Book", new MutableConfiguration<>());
+            firstBooks.put(1L, "Livro do primeiro banco");
+
+            first.close();
+
+            assertThat(first.getURI()).isNotEqualTo(second.getURI());
+            assertThat(secondBooks.get(1L)).isNull();
+            assertThat(second.isClosed()).isFalse();
+            assertThat(secondBooks.isClosed()).isFalse();
+        } finally {
+            second.close();
+        }
+    }
+}
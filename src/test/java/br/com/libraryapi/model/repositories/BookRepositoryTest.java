@@ -1,22 +1,32 @@
 package br.com.libraryapi.model.repositories;
 
+import br.com.libraryapi.api.dto.BookDTO;
 import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.support.SqlStatementCounter;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith(SpringExtension.class)
+@ExtendWith({SpringExtension.class, SqlStatementCounter.class})
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = SqlStatementCounter.PROPERTY)
 public class BookRepositoryTest {
     @Autowired
     TestEntityManager entityManager;
@@ -79,4 +89,99 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Deve listar todos os isbns cadastrados")
+    public void streamAllIsbnsTest() {
+        entityManager.persist(Book.builder().isbn("123").build());
+        entityManager.persist(Book.builder().isbn("456").build());
+
+        try (Stream<String> isbns = repository.streamAllIsbns()) {
+            assertThat(isbns).containsExactlyInAnyOrder("123", "456");
+        }
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os livros em ordem de id para exportação")
+    public void streamAllForExportTest() {
+        Book first = entityManager.persist(Book.builder().title("Duna").author("Frank").isbn("123").build());
+        Book second = entityManager.persist(Book.builder().title("Akira").author("Otomo").isbn("456").build());
+
+        try (Stream<BookDTO> books = repository.streamAllForExport()) {
+            assertThat(books).extracting(BookDTO::getId, BookDTO::getIsbn)
+                    .containsExactly(tuple(first.getId(), "123"), tuple(second.getId(), "456"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve inserir os livros em lote")
+    public void insertAllTest() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            books.add(Book.builder().title("Livro " + i).author("Fulano").isbn("lote-" + i).build());
+        }
+
+        SqlStatementCounter.reset();
+
+        List<Book> saved = repository.insertAll(books);
+
+        assertThat(saved).allMatch(book -> book.getId() != null);
+        assertThat(SqlStatementCounter.total()).isLessThan(10);
+        assertThat(repository.count()).isEqualTo(120);
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas os isbns já cadastrados")
+    public void findExistingIsbnsTest() {
+        entityManager.persist(Book.builder().isbn("123").build());
+        entityManager.persist(Book.builder().isbn("456").build());
+
+        assertThat(repository.findExistingIsbns(Arrays.asList("123", "789"))).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os livros por cursor sem repetir nem pular registros")
+    public void findSliceByKeysetTest() {
+        String[] titles = {"Duna", "Akira", "Cosmos", "Akira", "Bíblia"};
+        for (int i = 0; i < titles.length; i++) {
+            entityManager.persist(Book.builder().title(titles[i]).author("Fulano").isbn("isbn-" + i).build());
+        }
+
+        List<String> found = new ArrayList<>();
+        Keyset keyset = Keyset.first(Sort.by("title"));
+        Slice<Book> slice;
+        do {
+            slice = repository.findSlice(keyset.toSpecification(), PageRequest.of(0, 2, keyset.sort()));
+            slice.getContent().forEach(book -> found.add(book.getTitle()));
+            if (slice.hasContent()) {
+                keyset = Keyset.decode(keyset.next(slice.getContent().get(slice.getNumberOfElements() - 1)).encode());
+            }
+        } while (slice.hasNext());
+
+        assertThat(found).containsExactly("Akira", "Akira", "Bíblia", "Cosmos", "Duna");
+    }
+
+    @Test
+    @DisplayName("Deve percorrer por cursor os livros sem título sem repetir nem pular registros")
+    public void findSliceByKeysetWithNullValuesTest() {
+        String[] titles = {"Duna", null, "Akira", null, "Cosmos"};
+        for (int i = 0; i < titles.length; i++) {
+            entityManager.persist(Book.builder().title(titles[i]).author("Fulano").isbn("isbn-" + i).build());
+        }
+
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            List<String> found = new ArrayList<>();
+            Keyset keyset = Keyset.first(Sort.by(direction, "title"));
+            Slice<Book> slice;
+            do {
+                slice = repository.findSlice(keyset.toSpecification(), PageRequest.of(0, 2, keyset.sort()));
+                slice.getContent().forEach(book -> found.add(book.getTitle()));
+                if (slice.hasContent()) {
+                    keyset = Keyset.decode(keyset.next(slice.getContent().get(slice.getNumberOfElements() - 1)).encode());
+                }
+            } while (slice.hasNext());
+
+            assertThat(found).hasSize(5).containsOnlyOnce("Akira", "Cosmos", "Duna");
+            assertThat(found.subList(0, 2)).containsOnlyNulls();
+        }
+    }
 }
@@ -1,27 +1,41 @@
 package br.com.libraryapi.model.repositories;
 
+import br.com.libraryapi.api.dto.LateLoanDTO;
+import br.com.libraryapi.api.dto.LoanBookDTO;
+import br.com.libraryapi.api.dto.LoansVersionDTO;
+import br.com.libraryapi.api.dto.LoanExportDTO;
+import br.com.libraryapi.api.dto.OpenLoanDTO;
+import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.support.SqlStatementCounter;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.tuple;
 
-@ExtendWith(SpringExtension.class)
+@ExtendWith({SpringExtension.class, SqlStatementCounter.class})
 @ActiveProfiles("test")
-@DataJpaTest
+@DataJpaTest(properties = SqlStatementCounter.PROPERTY)
 public class LoanRepositoryTest {
 
     @Autowired
@@ -56,13 +70,81 @@ public class LoanRepositoryTest {
         Loan loan = Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
         entityManager.persist(loan);
 
-        Page<Loan> result = repository.findByBookIsbnOrCustomer(isbn, customer, PageRequest.of(0, 10));
+        LoanQuery query = LoanQuery.anyOf(LoanSpecifications.bookIsbn(isbn), LoanSpecifications.customer(customer));
+        Slice<Loan> result = repository.findSlice(query, PageRequest.of(0, 10));
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent()).contains(loan);
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
         assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
-        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(repository.count(query)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve unir as buscas por isbn e customer sem duplicar empréstimos")
+    public void findByBookIsbnOrCustomerUnionTest() {
+        Book essencialismo = entityManager.persist(Book.builder().title("Essencialismo").author("João").isbn("111").build());
+        Book vingadores = entityManager.persist(Book.builder().title("Vingadores").author("João").isbn("222").build());
+        Book outro = entityManager.persist(Book.builder().title("Outro").author("João").isbn("333").build());
+        Loan byIsbn = entityManager.persist(Loan.builder().book(essencialismo).customer("José").loanDate(LocalDate.now().minusDays(3))
+                .returned(true).build());
+        Loan byBoth = entityManager.persist(Loan.builder().book(essencialismo).customer("Maria").loanDate(LocalDate.now().minusDays(2))
+                .build());
+        Loan byCustomer = entityManager.persist(Loan.builder().book(vingadores).customer("Maria").loanDate(LocalDate.now().minusDays(1))
+                .build());
+        entityManager.persist(Loan.builder().book(outro).customer("José").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        LoanQuery query = LoanQuery.anyOf(LoanSpecifications.bookIsbn("111"), LoanSpecifications.customer("Maria"));
+        SqlStatementCounter.reset();
+        Slice<Loan> first = repository.findSlice(query, PageRequest.of(0, 2, Sort.by("loanDate")));
+        first.getContent().forEach(loan -> loan.getBook().getTitle());
+        long preparedStatements = SqlStatementCounter.total();
+        Slice<Loan> second = repository.findSlice(query, PageRequest.of(1, 2, Sort.by("loanDate")));
+
+        assertThat(first.getContent()).extracting(Loan::getId).containsExactly(byIsbn.getId(), byBoth.getId());
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(Loan::getId).containsExactly(byCustomer.getId());
+        assertThat(second.hasNext()).isFalse();
+        assertThat(preparedStatements).isEqualTo(3);
+        assertThat(repository.count(query)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve recusar páginas profundas na união de isbn e customer")
+    public void findUnionBeyondWindowTest() {
+        LoanQuery query = LoanQuery.anyOf(LoanSpecifications.bookIsbn("111"), LoanSpecifications.customer("Maria"));
+        int size = 10;
+        int lastPage = LoanRepositoryCustomImpl.MAX_UNION_WINDOW / size - 1;
+
+        Throwable exception = catchThrowable(() -> repository.findSlice(query, PageRequest.of(lastPage + 1, size)));
+
+        assertThat(repository.findSlice(query, PageRequest.of(lastPage, size)).getContent()).isEmpty();
+        assertThat(exception).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    @DisplayName("Deve combinar os filtros de email, período e devolução apenas quando informados")
+    public void findByOptionalFiltersTest() {
+        Book book = entityManager.persist(Book.builder().title("Essencialismo").author("João").isbn("111").build());
+        Loan match = entityManager.persist(Loan.builder().book(book).customer("Maria").customerEmail("maria@email.com")
+                .loanDate(LocalDate.of(2020, 10, 5)).returned(true).build());
+        entityManager.persist(Loan.builder().book(book).customer("Maria").customerEmail("maria@email.com")
+                .loanDate(LocalDate.of(2020, 9, 1)).returned(true).build());
+        entityManager.persist(Loan.builder().book(book).customer("Maria").customerEmail("maria@email.com")
+                .loanDate(LocalDate.of(2020, 10, 6)).build());
+        entityManager.persist(Loan.builder().book(book).customer("Ana").customerEmail("ana@email.com")
+                .loanDate(LocalDate.of(2020, 10, 5)).returned(true).build());
+
+        LoanQuery query = LoanQuery.anyOf(LoanSpecifications.bookIsbn(null), LoanSpecifications.customer(null))
+                .and(LoanSpecifications.customerEmail("maria@email.com"))
+                .and(LoanSpecifications.loanDateBetween(LocalDate.of(2020, 10, 1), LocalDate.of(2020, 10, 31)))
+                .and(LoanSpecifications.returned(true));
+
+        assertThat(repository.findSlice(query, PageRequest.of(0, 10)).getContent()).containsExactly(match);
+        assertThat(repository.count(query)).isEqualTo(1);
+        assertThat(repository.count(LoanQuery.all())).isEqualTo(4);
     }
 
     @Test
@@ -92,4 +174,235 @@ public class LoanRepositoryTest {
 
         assertThat(loans).isEmpty();
     }
+
+    @Test
+    @DisplayName("Deve listar empréstimos com o livro em uma única consulta")
+    public void findByBookIsbnOrCustomerSingleStatementTest() {
+        final String customer = "Maria";
+        for (int i = 0; i < 5; i++) {
+            Book book = Book.builder().title("Livro " + i).author("João").isbn("isbn-" + i).build();
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        Slice<Loan> result = repository.findSlice(LoanQuery.anyOf(LoanSpecifications.bookIsbn(null),
+                LoanSpecifications.customer(customer)), PageRequest.of(0, 10));
+        result.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        assertThat(result.getContent()).hasSize(5);
+        assertThat(SqlStatementCounter.total()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve listar empréstimos de um livro em uma única consulta")
+    public void findByBookSingleStatementTest() {
+        Book book = Book.builder().title("Essencialismo").author("João").isbn("123654").build();
+        entityManager.persist(book);
+        for (int i = 0; i < 5; i++) {
+            entityManager.persist(Loan.builder().book(book).customer("Maria " + i).loanDate(LocalDate.now()).returned(true).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        Page<Loan> result = repository.findByBook(entityManager.getEntityManager().getReference(Book.class, book.getId()), PageRequest.of(0, 10));
+        result.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        assertThat(result.getContent()).hasSize(5);
+        assertThat(SqlStatementCounter.total()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos por cursor com o livro em uma única consulta")
+    public void findSliceByKeysetTest() {
+        Book book = Book.builder().title("Essencialismo").author("João").isbn("123654").build();
+        entityManager.persist(book);
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Loan.builder().book(book).customer("Maria").loanDate(LocalDate.now().minusDays(i)).returned(true).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Keyset keyset = Keyset.first(Sort.by("loanDate"));
+        SqlStatementCounter.reset();
+        Slice<Loan> slice = repository.findSlice(
+                LoanSpecifications.bookIsbn("123654").and(keyset.toSpecification()),
+                PageRequest.of(0, 2, keyset.sort()));
+        slice.getContent().forEach(loan -> loan.getBook().getTitle());
+
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice.getContent().get(0).getLoanDate()).isEqualTo(LocalDate.now().minusDays(2));
+        assertThat(SqlStatementCounter.total()).isEqualTo(1);
+
+        Slice<Loan> next = repository.findSlice(
+                LoanSpecifications.bookIsbn("123654").and(keyset.next(slice.getContent().get(1)).toSpecification()),
+                PageRequest.of(0, 2, keyset.sort()));
+
+        assertThat(next.getContent()).hasSize(1);
+        assertThat(next.hasNext()).isFalse();
+        assertThat(next.getContent().get(0).getLoanDate()).isEqualTo(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Deve listar os livros com empréstimos em aberto")
+    public void streamActiveLoanBookIdsTest() {
+        Book loaned = Book.builder().title("Essencialismo").author("João").isbn("123").build();
+        Book returned = Book.builder().title("Vingadores").author("João").isbn("456").build();
+        entityManager.persist(loaned);
+        entityManager.persist(returned);
+        entityManager.persist(Loan.builder().book(loaned).customer("Maria").loanDate(LocalDate.now()).build());
+        entityManager.persist(Loan.builder().book(returned).customer("Maria").loanDate(LocalDate.now()).returned(true).build());
+
+        try (Stream<Long> bookIds = repository.streamActiveLoanBookIds()) {
+            assertThat(bookIds).containsExactly(loaned.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Não deve permitir dois empréstimos em aberto para o mesmo livro")
+    public void singleOpenLoanPerBookTest() {
+        Book book = Book.builder().title("Essencialismo").author("João").isbn("123").build();
+        entityManager.persist(book);
+        repository.saveAndFlush(Loan.builder().book(book).customer("Maria").loanDate(LocalDate.now()).build());
+
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(
+                Loan.builder().book(book).customer("José").loanDate(LocalDate.now()).build()));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro para novo empréstimo após a devolução")
+    public void returnedLoanReleasesBookTest() {
+        Book book = Book.builder().title("Essencialismo").author("João").isbn("123").build();
+        entityManager.persist(book);
+        Loan loan = repository.saveAndFlush(Loan.builder().book(book).customer("Maria").loanDate(LocalDate.now()).build());
+
+        loan.setReturned(true);
+        repository.saveAndFlush(loan);
+        Loan next = repository.saveAndFlush(Loan.builder().book(book).customer("José").loanDate(LocalDate.now()).build());
+
+        assertThat(loan.getOpenBookId()).isNull();
+        assertThat(next.getOpenBookId()).isEqualTo(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve percorrer os empréstimos com os dados do livro para exportação")
+    public void streamAllForExportTest() {
+        Book book = Book.builder().title("Essencialismo").author("João").isbn("123").build();
+        entityManager.persist(book);
+        Loan loan = entityManager.persist(Loan.builder().book(book).customer("Maria").customerEmail("maria@email.com")
+                .loanDate(LocalDate.now()).build());
+
+        try (Stream<LoanExportDTO> loans = repository.streamAllForExport()) {
+            assertThat(loans).extracting(LoanExportDTO::getId, LoanExportDTO::getEmail, LoanExportDTO::getIsbn, LoanExportDTO::getTitle)
+                    .containsExactly(tuple(loan.getId(), "maria@email.com", "123", "Essencialismo"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos atrasados dos clientes informados com os dados do livro")
+    public void findLateLoansOfTest() {
+        LocalDate lateSince = LocalDate.now().minusDays(4);
+        persistLoan("late-0", "maria@email.com", lateSince.minusDays(1));
+        persistLoan("late-1", "maria@email.com", lateSince.minusDays(2));
+        persistLoan("late-2", "ana@email.com", lateSince.minusDays(1));
+        persistLoan("late-ok", "maria@email.com", LocalDate.now());
+
+        List<LateLoanDTO> loans = repository.findLateLoansOf(lateSince, Collections.singletonList("maria@email.com"));
+
+        assertThat(loans).extracting(LateLoanDTO::getEmail, LateLoanDTO::getIsbn, LateLoanDTO::getTitle)
+                .containsExactly(tuple("maria@email.com", "late-1", "Livro late-1"),
+                        tuple("maria@email.com", "late-0", "Livro late-0"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar pelos ids os clientes dos empréstimos ainda não devolvidos")
+    public void findOpenLoanCustomerEmailsInTest() {
+        Loan open = persistLoan("open-0", "maria@email.com", LocalDate.now().minusDays(5));
+        Loan other = persistLoan("open-2", "maria@email.com", LocalDate.now().minusDays(5));
+        Loan returned = persistLoan("open-1", "ana@email.com", LocalDate.now().minusDays(5));
+        returned.setReturned(true);
+        entityManager.persist(returned);
+
+        List<String> emails = repository.findOpenLoanCustomerEmailsIn(Arrays.asList(open.getId(), other.getId(), returned.getId()));
+
+        assertThat(emails).containsExactly("maria@email.com");
+        try (Stream<OpenLoanDTO> openLoans = repository.streamOpenLoans()) {
+            assertThat(openLoans).extracting(OpenLoanDTO::getId).containsExactlyInAnyOrder(open.getId(), other.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve devolver um empréstimo com uma única atualização liberando o livro")
+    public void markReturnedTest() {
+        Loan loan = persistLoan("ret-0", "maria@email.com", LocalDate.now());
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        int updated = repository.markReturned(loan.getId());
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(SqlStatementCounter.total()).isEqualTo(1);
+        assertThat(repository.markReturned(-1L)).isZero();
+        assertThat(repository.markReturned(loan.getId())).isZero();
+        Loan returned = entityManager.find(Loan.class, loan.getId());
+        assertThat(returned.getReturned()).isTrue();
+        assertThat(returned.getOpenBookId()).isNull();
+        assertThat(returned.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Deve devolver em lote apenas os empréstimos em aberto encontrados por id ou isbn")
+    public void markAllReturnedTest() {
+        Loan byId = persistLoan("ret-0", "maria@email.com", LocalDate.now());
+        Loan byIsbn = persistLoan("ret-1", "maria@email.com", LocalDate.now());
+        Loan other = persistLoan("ret-2", "maria@email.com", LocalDate.now());
+        entityManager.flush();
+
+        List<LoanBookDTO> open = repository.findOpenLoanBooksByIds(Collections.singletonList(byId.getId()));
+        open.addAll(repository.findOpenLoanBooksByIsbns(Collections.singletonList("ret-1")));
+        int updated = repository.markAllReturned(Arrays.asList(byId.getId(), byIsbn.getId()));
+        entityManager.clear();
+
+        assertThat(open).extracting(LoanBookDTO::getId, LoanBookDTO::getIsbn)
+                .containsExactly(tuple(byId.getId(), "ret-0"), tuple(byIsbn.getId(), "ret-1"));
+        assertThat(updated).isEqualTo(2);
+        assertThat(repository.markAllReturned(Collections.singletonList(byId.getId()))).isZero();
+        assertThat(repository.findOpenLoanBooksByIsbns(Arrays.asList("ret-0", "ret-1", "ret-2")))
+                .extracting(LoanBookDTO::getId).containsExactly(other.getId());
+    }
+
+    @Test
+    @DisplayName("Deve mudar a versão dos empréstimos de um livro a cada devolução ou novo empréstimo")
+    public void findLoansVersionByBookIdTest() {
+        Loan loan = persistLoan("ver-0", "maria@email.com", LocalDate.now());
+        entityManager.flush();
+        Long bookId = loan.getBook().getId();
+
+        LoansVersionDTO initial = repository.findLoansVersionByBookId(bookId);
+        repository.markReturned(loan.getId());
+        LoansVersionDTO returned = repository.findLoansVersionByBookId(bookId);
+        entityManager.persist(Loan.builder().book(loan.getBook()).customer("Cliente").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        LoansVersionDTO lent = repository.findLoansVersionByBookId(bookId);
+
+        assertThat(initial).extracting(LoansVersionDTO::getCount, LoansVersionDTO::getVersionSum, LoansVersionDTO::getMaxId)
+                .containsExactly(1L, 0L, loan.getId());
+        assertThat(returned.getVersionSum()).isEqualTo(1L);
+        assertThat(lent.getCount()).isEqualTo(2L);
+        assertThat(lent.getMaxId()).isGreaterThan(loan.getId());
+        assertThat(repository.findLoansVersionByBookId(-1L).getCount()).isZero();
+    }
+
+    private Loan persistLoan(String isbn, String email, LocalDate loanDate) {
+        Book book = entityManager.persist(Book.builder().title("Livro " + isbn).author("João").isbn(isbn).build());
+        return entityManager.persist(Loan.builder().book(book).customer("Cliente").customerEmail(email)
+                .loanDate(loanDate).build());
+    }
 }
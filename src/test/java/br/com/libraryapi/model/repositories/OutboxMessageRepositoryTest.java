@@ -0,0 +1,110 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.OutboxMessage;
+import br.com.libraryapi.model.entity.OutboxStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class OutboxMessageRepositoryTest {
+
+    @Autowired
+    OutboxMessageRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("Deve reservar apenas as mensagens pendentes vencidas e as reservas expiradas")
+    public void claimTest() {
+        Instant now = Instant.now();
+        Instant staleBefore = now.minus(Duration.ofMinutes(5));
+        OutboxMessage due = persist(OutboxStatus.PENDING, now.minusSeconds(1), null);
+        persist(OutboxStatus.PENDING, now.plusSeconds(60), null);
+        persist(OutboxStatus.SENT, now.minusSeconds(1), null);
+        persist(OutboxStatus.PROCESSING, now.minusSeconds(1), now.minusSeconds(10));
+        OutboxMessage stale = persist(OutboxStatus.PROCESSING, now.minusSeconds(1), now.minus(Duration.ofMinutes(10)));
+
+        List<Long> ids = repository.findClaimableIds(now, staleBefore, 0, 1, PageRequest.of(0, 10));
+        int claimed = repository.claim(ids, "token", now, staleBefore);
+        entityManager.clear();
+
+        assertThat(ids).containsExactly(due.getId(), stale.getId());
+        assertThat(claimed).isEqualTo(2);
+        assertThat(repository.findByClaimToken("token"))
+                .extracting(OutboxMessage::getStatus)
+                .containsOnly(OutboxStatus.PROCESSING);
+        assertThat(repository.claim(ids, "other", now, staleBefore)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve separar as mensagens entre as partições dos workers")
+    public void partitionTest() {
+        Instant now = Instant.now();
+        for (int i = 0; i < 4; i++) {
+            persist(OutboxStatus.PENDING, now.minusSeconds(1), null);
+        }
+
+        List<Long> even = repository.findClaimableIds(now, now, 0, 2, PageRequest.of(0, 10));
+        List<Long> odd = repository.findClaimableIds(now, now, 1, 2, PageRequest.of(0, 10));
+
+        assertThat(even).hasSize(2).allMatch(id -> id % 2 == 0);
+        assertThat(odd).hasSize(2).allMatch(id -> id % 2 == 1);
+    }
+
+    @Test
+    @DisplayName("Deve marcar como enviadas apenas as mensagens reservadas pelo mesmo token")
+    public void markSentTest() {
+        Instant now = Instant.now();
+        OutboxMessage message = persist(OutboxStatus.PENDING, now.minusSeconds(1), null);
+        repository.claim(List.of(message.getId()), "token", now, now);
+
+        assertThat(repository.markSent(List.of(message.getId()), "other", now)).isZero();
+        assertThat(repository.markSent(List.of(message.getId()), "token", now)).isEqualTo(1);
+        entityManager.clear();
+        assertThat(repository.countByStatus(OutboxStatus.SENT)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve registrar a falha apenas das mensagens reservadas pelo mesmo token")
+    public void markFailedTest() {
+        Instant now = Instant.now();
+        OutboxMessage message = persist(OutboxStatus.PENDING, now.minusSeconds(1), null);
+        repository.claim(List.of(message.getId()), "token", now, now);
+
+        assertThat(repository.markFailed(message.getId(), "other", OutboxStatus.PENDING, 1, now, "smtp down")).isZero();
+        assertThat(repository.markFailed(message.getId(), "token", OutboxStatus.PENDING, 1, now, "smtp down")).isEqualTo(1);
+        entityManager.clear();
+        OutboxMessage failed = repository.findById(message.getId()).get();
+        assertThat(failed.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getClaimToken()).isNull();
+        assertThat(failed.getLastError()).isEqualTo("smtp down");
+    }
+
+    private OutboxMessage persist(OutboxStatus status, Instant nextAttemptAt, Instant claimedAt) {
+        return entityManager.persist(OutboxMessage.builder()
+                .recipient("fulano@email.com")
+                .message("Empréstimo atrasado")
+                .status(status)
+                .nextAttemptAt(nextAttemptAt)
+                .claimedAt(claimedAt)
+                .createdAt(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.libraryapi.model.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchemaMigrationTest {
+    private static final int LOANS = 2000;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        if (jdbcTemplate.queryForObject("select count(*) from loan", Long.class) > 0) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("insert into book (id, title, author, isbn) values (?, 'Livro', 'João', ?)",
+                IntStream.rangeClosed(1, LOANS).mapToObj(id -> new Object[]{id, "isbn-" + id}).collect(Collectors.toList()));
+        jdbcTemplate.batchUpdate("insert into loan (customer, customer_email, loan_date, returned, book_id, open_book_id)" +
+                        " values ('Cliente', ?, ?, ?, ?, ?)",
+                IntStream.rangeClosed(1, LOANS).mapToObj(id -> new Object[]{
+                        "customer" + (id % 500) + "@email.com", Date.valueOf(LocalDate.of(2020, 1, 1).plusDays(id % 300)),
+                        id % 10 != 0, id, id % 10 != 0 ? null : id}).collect(Collectors.toList()));
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar todas as migrações versionadas")
+    public void migrationsAppliedTest() {
+        assertThat(jdbcTemplate.queryForList("select \"version\" from \"flyway_schema_history\"" +
+                " where \"version\" is not null and \"success\" = true order by \"installed_rank\"", String.class))
+                .containsExactly("1", "2", "3", "4", "5", "6", "7", "8", "9");
+    }
+
+    @Test
+    @DisplayName("Deve migrar um banco existente a partir do esquema anterior às migrações")
+    public void migrateExistingDatabaseTest() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate legacy = new JdbcTemplate(dataSource);
+        legacy.execute("create table book (id bigint generated by default as identity, author varchar(255)," +
+                " isbn varchar(255), title varchar(255), primary key (id))");
+        legacy.execute("create table loan (id bigint generated by default as identity, customer varchar(255)," +
+                " customer_email varchar(255), loan_date date, returned boolean, book_id bigint, primary key (id)," +
+                " foreign key (book_id) references book (id))");
+        legacy.update("insert into book (id, title, author, isbn) values (1, 'Livro', 'João', '111'), (120, 'Outro', 'Ana', '222')");
+        legacy.update("insert into loan (id, customer, returned, book_id) values" +
+                " (1, 'Antigo', null, 1), (2, 'Atual', false, 1), (3, 'Devolvido', true, 120), (4, 'Aberto', null, 120)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+
+        assertThat(legacy.queryForList("select open_book_id from loan order by id", Long.class))
+                .containsExactly(null, 1L, null, 120L);
+        assertThat(legacy.queryForObject("select next value for book_seq", Long.class)).isGreaterThan(120L + 49);
+        assertThat(legacy.queryForObject("select count(*) from outbox_message", Long.class)).isZero();
+        Throwable duplicateIsbn = catchThrowable(() ->
+                legacy.update("insert into book (id, title, author, isbn) values (500, 'Cópia', 'João', '111')"));
+        assertThat(duplicateIsbn).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve exigir o status de devolução do empréstimo com padrão falso")
+    public void returnedIsNotNullTest() {
+        assertThat(jdbcTemplate.queryForObject("select is_nullable from information_schema.columns" +
+                " where table_name = 'LOAN' and column_name = 'RETURNED'", String.class)).isEqualTo("NO");
+        assertThat(jdbcTemplate.queryForObject("select column_default from information_schema.columns" +
+                " where table_name = 'LOAN' and column_name = 'RETURNED'", String.class)).isEqualToIgnoringCase("FALSE");
+    }
+
+    @Test
+    @DisplayName("Deve usar o índice único de isbn na busca de livros")
+    public void isbnLookupUsesIndexTest() {
+        assertThat(plan("select id from book where isbn = 'isbn-10'")).contains("UK_BOOK_ISBN");
+    }
+
+    @Test
+    @DisplayName("Deve usar um índice por livro para verificar empréstimos ativos")
+    public void activeLoanOfBookUsesIndexTest() {
+        assertThat(plan("select count(id) from loan where book_id = 10 and returned = false"))
+                .contains("BOOK_ID = 10")
+                .doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve usar o índice de empréstimos ativos para buscar clientes atrasados")
+    public void lateCustomersUseIndexTest() {
+        assertThat(plan("select customer_email from loan where loan_date <= date '2020-03-01' and returned = false" +
+                " and customer_email > '' group by customer_email order by customer_email"))
+                .contains("IX_LOAN_ACTIVE_DUE");
+    }
+
+    @Test
+    @DisplayName("Deve usar o índice de email para buscar os empréstimos atrasados dos clientes")
+    public void lateLoansOfCustomersUseIndexTest() {
+        assertThat(plan("select id from loan where customer_email in ('customer10@email.com', 'customer20@email.com')" +
+                " and loan_date <= date '2020-10-06' and returned = false"))
+                .contains("IX_LOAN_CUSTOMER_EMAIL");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+}
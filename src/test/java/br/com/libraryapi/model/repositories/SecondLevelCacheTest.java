@@ -0,0 +1,87 @@
+package br.com.libraryapi.model.repositories;
+
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith({SpringExtension.class, SqlStatementCounter.class})
+@ActiveProfiles("test")
+@DataJpaTest(properties = SqlStatementCounter.PROPERTY)
+@DirtiesContext
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve buscar um livro por isbn e por id a partir do cache de segundo nível")
+    public void findBookFromSecondLevelCacheTest() {
+        Book book = bookRepository.save(Book.builder().title("Duna").author("Frank").isbn("cache-1").build());
+        bookRepository.findByIsbn("cache-1");
+
+        SqlStatementCounter.reset();
+        Optional<Book> byIsbn = bookRepository.findByIsbn("cache-1");
+        Optional<Book> byId = bookRepository.findById(book.getId());
+
+        assertThat(byIsbn).map(Book::getTitle).contains("Duna");
+        assertThat(byId).map(Book::getIsbn).contains("cache-1");
+        assertThat(SqlStatementCounter.total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve refletir a atualização de um livro presente no cache de segundo nível")
+    public void updateBookInSecondLevelCacheTest() {
+        Book book = bookRepository.save(Book.builder().title("Duna").author("Frank").isbn("cache-2").build());
+        bookRepository.findByIsbn("cache-2");
+
+        book.setTitle("Duna Messias");
+        bookRepository.save(book);
+
+        SqlStatementCounter.reset();
+        assertThat(bookRepository.findByIsbn("cache-2")).map(Book::getTitle).contains("Duna Messias");
+        assertThat(SqlStatementCounter.total()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a contagem de empréstimos de um livro até um novo empréstimo")
+    public void countByBookQueryCacheTest() {
+        Book book = bookRepository.save(Book.builder().title("Duna").author("Frank").isbn("cache-3").build());
+        loanRepository.save(Loan.builder().book(book).customer("Maria").loanDate(LocalDate.now()).build());
+        loanRepository.countByBook(book);
+
+        SqlStatementCounter.reset();
+        long cached = loanRepository.countByBook(book);
+        long cachedStatements = SqlStatementCounter.total();
+        loanRepository.save(Loan.builder().book(book).customer("João").loanDate(LocalDate.now()).returned(true).build());
+
+        assertThat(cached).isEqualTo(1);
+        assertThat(cachedStatements).isZero();
+        assertThat(loanRepository.countByBook(book)).isEqualTo(2);
+    }
+}
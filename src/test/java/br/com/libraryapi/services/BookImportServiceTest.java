@@ -0,0 +1,140 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.dto.BookImportErrorDTO;
+import br.com.libraryapi.api.dto.BookImportReportDTO;
+import br.com.libraryapi.api.mappers.BookMapper;
+import br.com.libraryapi.api.services.BookImportService;
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.impl.BookImportServiceImpl;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookImportServiceTest {
+
+    BookImportService service;
+
+    @MockBean
+    BookService bookService;
+
+    @BeforeEach
+    public void setUp() {
+        service = new BookImportServiceImpl(bookService, new BookMapper(), new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+        Mockito.when( bookService.findExistingIsbns(Mockito.anyCollection()) ).thenReturn(Collections.emptySet());
+        Mockito.when( bookService.saveAll(Mockito.anyList()) ).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um NDJSON em lotes")
+    public void importNdjsonTest() throws Exception {
+        BookImportReportDTO report = service.importNdjson(input(
+                "{\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"1\"}\n" +
+                "\n" +
+                "{\"title\":\"Akira\",\"author\":\"Otomo\",\"isbn\":\"2\"}\n" +
+                "{\"title\":\"Cosmos\",\"author\":\"Sagan\",\"isbn\":\"3\"}\n"));
+
+        assertThat(report.getImported()).isEqualTo(3);
+        assertThat(report.getRejected()).isZero();
+        ArgumentCaptor<List<Book>> chunks = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(bookService, Mockito.times(2)).saveAll(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(2, 1);
+    }
+
+    @Test
+    @DisplayName("Deve relatar as linhas inválidas, duplicadas e já cadastradas")
+    public void importNdjsonErrorsTest() throws Exception {
+        Mockito.when( bookService.findExistingIsbns(Mockito.anyCollection()) ).thenReturn(Set.of("9"));
+
+        BookImportReportDTO report = service.importNdjson(input(
+                "{\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"1\"}\n" +
+                "{\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"1\"}\n" +
+                "nao e json\n" +
+                "{\"title\":\"Akira\"}\n" +
+                "{\"title\":\"Cosmos\",\"author\":\"Sagan\",\"isbn\":\"9\"}\n"));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(4);
+        assertThat(report.getErrors()).extracting(BookImportErrorDTO::getLine).containsExactlyInAnyOrder(2L, 3L, 4L, 5L);
+        assertThat(messages(report, 2)).containsExactly("Isbn duplicado na importação.");
+        assertThat(messages(report, 3)).containsExactly("Linha inválida.");
+        assertThat(messages(report, 4)).hasSize(2);
+        assertThat(messages(report, 5)).containsExactly("Isbn já cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve salvar linha a linha quando o lote falhar por isbn concorrente")
+    public void fallbackToSingleSavesTest() throws Exception {
+        Mockito.when( bookService.saveAll(Mockito.anyList()) ).thenThrow(new BusinessException("Isbn já cadastrado."));
+        Mockito.when( bookService.save(Mockito.any(Book.class)) )
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new BusinessException("Isbn já cadastrado."));
+
+        BookImportReportDTO report = service.importNdjson(input(
+                "{\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"1\"}\n" +
+                "{\"title\":\"Akira\",\"author\":\"Otomo\",\"isbn\":\"2\"}\n"));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(messages(report, 2)).containsExactly("Isbn já cadastrado.");
+    }
+
+    @Test
+    @DisplayName("Deve importar livros de um CSV com campos entre aspas")
+    public void importCsvTest() throws Exception {
+        BookImportReportDTO report = service.importCsv(input(
+                "isbn,title,author\n" +
+                "1,\"Duna, o messias\",Frank\n" +
+                "2,\"O \"\"Akira\"\"\",Otomo\n" +
+                "3,\"sem fim,Otomo\n"));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(messages(report, 4)).containsExactly("Linha inválida.");
+        ArgumentCaptor<List<Book>> chunk = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(bookService).saveAll(chunk.capture());
+        assertThat(chunk.getValue()).extracting(Book::getTitle).containsExactly("Duna, o messias", "O \"Akira\"");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio quando o CSV não tiver cabeçalho válido")
+    public void importCsvWithoutHeaderTest() {
+        Throwable exception = catchThrowable(() -> service.importCsv(input("1,Duna,Frank\n")));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Cabeçalho CSV inválido.");
+    }
+
+    private InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> messages(BookImportReportDTO report, long line) {
+        return report.getErrors().stream()
+                .filter(error -> error.getLine() == line)
+                .flatMap(error -> error.getErrors().stream())
+                .collect(Collectors.toList());
+    }
+}
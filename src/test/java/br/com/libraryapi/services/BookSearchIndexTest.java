@@ -0,0 +1,161 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.BookSearchIndex;
+import br.com.libraryapi.api.services.impl.BookSearchIndexImpl;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @MockBean
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        Mockito.when(repository.findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+        index = new BookSearchIndexImpl(repository, true, 10);
+        index.rebuild();
+        index.index(book(1L, "Homem de Ferro", "Stan Lee", "111"));
+        index.index(book(2L, "O Senhor dos Anéis", "Tolkien", "222"));
+        index.index(book(3L, "O Hobbit", "Tolkien", "333"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por trecho do título ignorando maiúsculas")
+    public void searchByTitleSubstringTest() {
+        Page<Book> result = index.search(Book.builder().title("HOBB").build(), PageRequest.of(0, 10)).get();
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(3L);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve combinar os filtros de todas as propriedades informadas")
+    public void searchByManyPropertiesTest() {
+        Page<Book> tolkien = index.search(Book.builder().author("tolk").build(), PageRequest.of(0, 10)).get();
+        Page<Book> tolkienWithO = index.search(Book.builder().author("tolk").title("o s").build(), PageRequest.of(0, 10)).get();
+        Page<Book> tolkienWithShortTitle = index.search(Book.builder().author("tolk").title("s").build(), PageRequest.of(0, 10)).get();
+
+        assertThat(tolkien.getContent()).extracting(Book::getId).containsExactly(2L, 3L);
+        assertThat(tolkienWithO.getContent()).extracting(Book::getId).containsExactly(2L);
+        assertThat(tolkienWithShortTitle.getContent()).extracting(Book::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar filtros vazios ou curtos demais para o índice")
+    public void searchNotCoveredTest() {
+        assertThat(index.search(new Book(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search(Book.builder().title("o").build(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search(Book.builder().title("ho").author("st").build(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve desativar o índice ao ultrapassar o limite de livros")
+    public void maxDocumentsTest() {
+        BookSearchIndex small = new BookSearchIndexImpl(repository, true, 2);
+        small.rebuild();
+        small.index(book(1L, "Homem de Ferro", "Stan Lee", "111"));
+        small.index(book(2L, "O Senhor dos Anéis", "Tolkien", "222"));
+        small.index(book(3L, "O Hobbit", "Tolkien", "333"));
+
+        assertThat(small.search(Book.builder().author("tolk").build(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ficar desligado quando não habilitado")
+    public void disabledTest() {
+        BookSearchIndex disabled = new BookSearchIndexImpl(repository, false, 10);
+        disabled.rebuild();
+        disabled.index(book(1L, "Homem de Ferro", "Stan Lee", "111"));
+
+        assertThat(disabled.search(Book.builder().title("homem").build(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve paginar e ordenar o resultado")
+    public void searchPagedAndSortedTest() {
+        index.index(book(4L, "A Sociedade do Anel", "Tolkien", "444"));
+
+        Page<Book> result = index.search(Book.builder().author("tolkien").build(),
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "title"))).get();
+
+        assertThat(result.getContent()).extracting(Book::getId).containsExactly(4L);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualizações e remoções de livros")
+    public void updateAndRemoveTest() {
+        index.index(book(3L, "A Sociedade do Anel", "Tolkien", "333"));
+        index.remove(2L);
+
+        assertThat(index.search(Book.builder().title("hobbit").build(), PageRequest.of(0, 10)).get()).isEmpty();
+        assertThat(index.search(Book.builder().title("anel").build(), PageRequest.of(0, 10)).get().getContent())
+                .extracting(Book::getId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve carregar o índice a partir do repositório")
+    public void rebuildTest() {
+        Mockito.when(repository.findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book(10L, "Duna", "Herbert", "999")), PageRequest.of(0, 1), true))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book(11L, "Fundação", "Asimov", "888")), PageRequest.of(0, 1), false));
+
+        index.rebuild();
+
+        assertThat(index.search(Book.builder().isbn("999").build(), PageRequest.of(0, 10)).get().getContent())
+                .extracting(Book::getId).containsExactly(10L);
+        assertThat(index.search(Book.builder().author("asimov").build(), PageRequest.of(0, 10)).get().getContent())
+                .extracting(Book::getId).containsExactly(11L);
+        assertThat(index.search(Book.builder().title("homem").build(), PageRequest.of(0, 10)).get()).isEmpty();
+        Mockito.verify(repository, Mockito.times(3)).findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve recorrer ao banco quando a carga do índice falhar")
+    public void rebuildFailureTest() {
+        Mockito.when(repository.findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(book(10L, "Duna", "Herbert", "999")), PageRequest.of(0, 1), true))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        index.rebuild();
+
+        assertThat(index.search(Book.builder().isbn("999").build(), PageRequest.of(0, 10))).isEmpty();
+        assertThat(index.search(Book.builder().title("hobbit").build(), PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao ordenar por propriedade desconhecida")
+    public void invalidSortTest() {
+        Throwable exception = catchThrowable(() -> index.search(Book.builder().title("hobbit").build(), PageRequest.of(0, 10, Sort.by("loans"))));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+    }
+
+    private Book book(Long id, String title, String author, String isbn) {
+        return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+    }
+}
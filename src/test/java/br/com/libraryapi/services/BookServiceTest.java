@@ -1,26 +1,37 @@
 package br.com.libraryapi.services;
 
+import br.com.libraryapi.api.services.BookSearchIndex;
 import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.IsbnFilter;
 import br.com.libraryapi.api.services.impl.BookServiceImpl;
+import br.com.libraryapi.api.services.impl.TotalCountServiceImpl;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.repositories.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -35,9 +46,19 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookSearchIndex searchIndex;
+
+    @MockBean
+    IsbnFilter isbnFilter;
+
+    MeterRegistry meterRegistry;
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new BookServiceImpl(repository, searchIndex, isbnFilter,
+                new TotalCountServiceImpl(Duration.ofMinutes(1), 100), meterRegistry);
     }
 
     @Test
@@ -56,10 +77,63 @@ public class BookServiceTest {
         assertThat(savedBook.getAuthor()).isEqualTo("Zé");
     }
 
+    @Test
+    @DisplayName("Deve salvar livros em lote atualizando o filtro e o índice de busca")
+    public void saveAllTest() {
+        Book book = Book.builder().id(1L).isbn("123").author("Zé").title("Homem de Ferro").build();
+        List<Book> books = Collections.singletonList(book);
+        Mockito.when( repository.insertAll(books) ).thenReturn(books);
+
+        List<Book> saved = service.saveAll(books);
+
+        assertThat(saved).containsExactly(book);
+        Mockito.verify(isbnFilter).add("123");
+        Mockito.verify(searchIndex).index(book);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio quando o lote violar o isbn único")
+    public void saveAllWithDuplicatedIsbnTest() {
+        List<Book> books = Collections.singletonList(createValidBook());
+        Mockito.when( repository.insertAll(books) ).thenThrow(new DataIntegrityViolationException("isbn"));
+
+        Throwable exception = catchThrowable( () -> service.saveAll(books) );
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn já cadastrado.");
+        Mockito.verify(isbnFilter, Mockito.never()).add(Mockito.anyString());
+        assertThat(meterRegistry.get("library.books.isbn.conflicts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve consultar apenas os isbns que o filtro não descarta")
+    public void findExistingIsbnsTest() {
+        Mockito.when( isbnFilter.mightExist("123") ).thenReturn(true);
+        Mockito.when( isbnFilter.mightExist("456") ).thenReturn(false);
+        Mockito.when( repository.findExistingIsbns(Collections.singletonList("123")) ).thenReturn(Set.of("123"));
+
+        Set<String> existing = service.findExistingIsbns(List.of("123", "456"));
+
+        assertThat(existing).containsExactly("123");
+    }
+
+    @Test
+    @DisplayName("Não deve consultar a base quando o filtro descartar todos os isbns")
+    public void findExistingIsbnsWithoutCandidatesTest() {
+        Mockito.when( isbnFilter.mightExist(Mockito.anyString()) ).thenReturn(false);
+
+        Set<String> existing = service.findExistingIsbns(List.of("123", "456"));
+
+        assertThat(existing).isEmpty();
+        Mockito.verify(repository, Mockito.never()).findExistingIsbns(Mockito.anyCollection());
+    }
+
     @Test
     @DisplayName("Deve lançar erro de negocio ao tentar salvar um livro com isbn duplicado")
     public void shouldNotSaveBookWithDuplicatedISBN() {
         Book book = createValidBook();
+        Mockito.when( isbnFilter.mightExist(Mockito.anyString()) ).thenReturn(true);
         Mockito.when( repository.existsByIsbn(Mockito.anyString()) ).thenReturn(true);
 
         Throwable exception = catchThrowable( () -> service.save(book) );
@@ -70,6 +144,35 @@ public class BookServiceTest {
         Mockito.verify(repository, Mockito.never()).save(book);
     }
 
+    @Test
+    @DisplayName("Não deve consultar a existência do isbn quando o filtro garantir que ele é novo")
+    public void skipExistsQueryForNewIsbnTest() {
+        Book book = createValidBook();
+        Book saved = Book.builder().id(1L).isbn("123").author("Zé").title("Homem de Ferro").build();
+        Mockito.when( isbnFilter.mightExist("123") ).thenReturn(false);
+        Mockito.when( repository.save(book) ).thenReturn(saved);
+
+        service.save(book);
+
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+        Mockito.verify(isbnFilter).add("123");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio quando o banco rejeitar o isbn duplicado")
+    public void duplicatedIsbnRejectedByDatabaseTest() {
+        Book book = createValidBook();
+        Mockito.when( isbnFilter.mightExist("123") ).thenReturn(false);
+        Mockito.when( repository.save(book) ).thenThrow(new DataIntegrityViolationException("unique"));
+
+        Throwable exception = catchThrowable( () -> service.save(book) );
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Isbn já cadastrado.");
+        Mockito.verify(isbnFilter, Mockito.never()).add(Mockito.anyString());
+    }
+
     @Test
     @DisplayName("Deve obter um livro por ID")
     public void getByIDTest() {
@@ -158,7 +261,7 @@ public class BookServiceTest {
         List<Book> books = Collections.singletonList(book);
         Page<Book> pages = new PageImpl<Book>(books, pageRequest, 1);
 
-        Mockito.when( repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)) ).thenReturn(pages);
+        Mockito.when( searchIndex.search(book, pageRequest) ).thenReturn(Optional.of(pages));
 
         Page<Book> result = service.find(book, pageRequest);
 
@@ -166,6 +269,43 @@ public class BookServiceTest {
         assertThat(result.getContent()).isEqualTo(books);
         assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+        Mockito.verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco quando o índice não atende o filtro")
+    public void findBookFallbackTest() {
+        Book filter = new Book();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        Mockito.when( searchIndex.search(filter, pageRequest) ).thenReturn(Optional.empty());
+        Mockito.when( repository.findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class)) )
+                .thenReturn(new SliceImpl<Book>(Collections.singletonList(createValidBook()), pageRequest, true));
+        Mockito.when( repository.count(Mockito.any(Example.class)) ).thenReturn(2L);
+
+        Page<Book> first = service.find(filter, pageRequest);
+        Page<Book> second = service.find(filter, pageRequest);
+
+        assertThat(first.getContent()).hasSize(1);
+        assertThat(second.getTotalElements()).isEqualTo(2);
+        Mockito.verify(repository, Mockito.times(2)).findSlice(Mockito.any(Specification.class), Mockito.any(Pageable.class));
+        Mockito.verify(repository, Mockito.times(1)).count(Mockito.any(Example.class));
+    }
+
+    @Test
+    @DisplayName("Deve manter o índice de busca sincronizado com as escritas")
+    public void searchIndexSyncTest() {
+        Book book = createValidBook();
+        Book saved = Book.builder().id(1L).isbn("123").author("Zé").title("Homem de Ferro").build();
+        Mockito.when( repository.existsByIsbn(Mockito.anyString()) ).thenReturn(false);
+        Mockito.when( repository.save(Mockito.any(Book.class)) ).thenReturn(saved);
+
+        service.save(book);
+        service.update(saved);
+        service.delete(saved);
+
+        Mockito.verify(searchIndex, Mockito.times(2)).index(saved);
+        Mockito.verify(searchIndex).remove(1L);
+        Mockito.verify(isbnFilter).remove("123");
     }
 
     @Test
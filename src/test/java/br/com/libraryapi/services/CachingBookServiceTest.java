@@ -0,0 +1,122 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.BookService;
+import br.com.libraryapi.api.services.impl.CachingBookService;
+import br.com.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class CachingBookServiceTest {
+
+    CachingBookService service;
+
+    @MockBean
+    BookService delegate;
+
+    @BeforeEach
+    public void setUp() {
+        service = new CachingBookService(delegate, 2, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Deve consultar o livro por id apenas uma vez")
+    public void getByIdCachedTest() {
+        Mockito.when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+
+        Optional<Book> first = service.getById(1L);
+        Optional<Book> second = service.getById(1L);
+
+        assertThat(first.get().getTitle()).isEqualTo("Vingadores");
+        assertThat(second.get().getTitle()).isEqualTo("Vingadores");
+        assertThat(first.get()).isNotSameAs(second.get());
+        Mockito.verify(delegate, Mockito.times(1)).getById(1L);
+        assertThat(service.byIdStats().hitCount()).isEqualTo(1);
+        assertThat(service.byIdStats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve permitir que alterações no livro retornado modifiquem o cache")
+    public void cachedCopyTest() {
+        Mockito.when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+
+        service.getById(1L).get().setTitle("Alterado");
+
+        assertThat(service.getById(1L).get().getTitle()).isEqualTo("Vingadores");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache por id e isbn ao atualizar o livro")
+    public void invalidateOnUpdateTest() {
+        Book updated = Book.builder().id(1L).title("Novo").author("Jorge").isbn("152478").build();
+        Mockito.when(delegate.getById(1L)).thenReturn(Optional.of(createBook()), Optional.of(updated));
+        Mockito.when(delegate.getBookByIsbn("152478")).thenReturn(Optional.of(createBook()), Optional.of(updated));
+        Mockito.when(delegate.update(Mockito.any(Book.class))).thenReturn(updated);
+
+        service.getById(1L);
+        service.getBookByIsbn("152478");
+        service.update(updated);
+
+        assertThat(service.getById(1L).get().getTitle()).isEqualTo("Novo");
+        assertThat(service.getBookByIsbn("152478").get().getTitle()).isEqualTo("Novo");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o isbn anterior e o novo ao alterar o isbn do livro")
+    public void invalidatePreviousIsbnOnUpdateTest() {
+        Book updated = Book.builder().id(1L).title("Vingadores").author("Jorge").isbn("999").build();
+        Mockito.when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+        Mockito.when(delegate.getBookByIsbn("152478")).thenReturn(Optional.of(createBook()), Optional.empty());
+        Mockito.when(delegate.getBookByIsbn("999")).thenReturn(Optional.empty(), Optional.of(updated));
+        Mockito.when(delegate.update(Mockito.any(Book.class))).thenReturn(updated);
+
+        service.getBookByIsbn("152478");
+        service.getBookByIsbn("999");
+        service.update(updated);
+
+        assertThat(service.getBookByIsbn("152478")).isEmpty();
+        assertThat(service.getBookByIsbn("999")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Deve invalidar a ausência de isbn em cache ao salvar um livro")
+    public void invalidateMissingIsbnOnSaveTest() {
+        Book saved = createBook();
+        Mockito.when(delegate.getBookByIsbn("152478")).thenReturn(Optional.empty(), Optional.of(saved));
+        Mockito.when(delegate.save(Mockito.any(Book.class))).thenReturn(saved);
+
+        assertThat(service.getBookByIsbn("152478")).isEmpty();
+        service.save(Book.builder().isbn("152478").build());
+
+        assertThat(service.getBookByIsbn("152478")).isPresent();
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao excluir o livro")
+    public void invalidateOnDeleteTest() {
+        Book book = createBook();
+        Mockito.when(delegate.getById(1L)).thenReturn(Optional.of(book), Optional.empty());
+
+        service.getById(1L);
+        service.delete(book);
+
+        assertThat(service.getById(1L)).isEmpty();
+        Mockito.verify(delegate).delete(book);
+    }
+
+    private Book createBook() {
+        return Book.builder().id(1L).title("Vingadores").author("Jorge").isbn("152478").build();
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.dto.BookDTO;
+import br.com.libraryapi.api.dto.LoanExportDTO;
+import br.com.libraryapi.api.services.ExportService;
+import br.com.libraryapi.api.services.impl.ExportServiceImpl;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ExportServiceTest {
+
+    ExportService service;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        service = new ExportServiceImpl(bookRepository, loanRepository,
+                Jackson2ObjectMapperBuilder.json().build(), transactionManager);
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em NDJSON, um por linha")
+    public void exportBooksNdjsonTest() throws Exception {
+        Mockito.when(bookRepository.streamAllForExport()).thenReturn(Stream.of(
+                new BookDTO(1L, "Duna", "Frank", "123"),
+                new BookDTO(2L, "Akira", "Otomo", "456")));
+
+        String output = export(out -> service.exportBooks(ExportService.Format.NDJSON, out));
+
+        assertThat(output).isEqualTo(
+                "{\"id\":1,\"title\":\"Duna\",\"author\":\"Frank\",\"isbn\":\"123\"}\n" +
+                "{\"id\":2,\"title\":\"Akira\",\"author\":\"Otomo\",\"isbn\":\"456\"}\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar os empréstimos em CSV escapando os campos")
+    public void exportLoansCsvTest() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Mockito.when(loanRepository.streamAllForExport()).thenReturn(Stream.of(
+                new LoanExportDTO(1L, "Silva, Maria", "maria@email.com", LocalDate.of(2020, 1, 2), null,
+                        7L, "123", "O \"Akira\"", "Otomo")).onClose(() -> closed.set(true)));
+
+        String output = export(out -> service.exportLoans(ExportService.Format.CSV, out));
+
+        assertThat(output).isEqualTo(
+                "id,customer,email,loanDate,returned,bookId,isbn,title,author\n" +
+                "1,\"Silva, Maria\",maria@email.com,2020-01-02,,7,123,\"O \"\"Akira\"\"\",Otomo\n");
+        assertThat(closed).isTrue();
+    }
+
+    private String export(Export export) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        export.to(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private interface Export {
+        void to(ByteArrayOutputStream output) throws Exception;
+    }
+}
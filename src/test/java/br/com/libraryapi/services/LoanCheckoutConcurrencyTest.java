@@ -0,0 +1,116 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.exceptions.BusinessException;
+import br.com.libraryapi.model.entity.Book;
+import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.BookRepository;
+import br.com.libraryapi.model.repositories.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class LoanCheckoutConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve emprestar o livro uma única vez quando houver checkouts simultâneos")
+    public void concurrentCheckoutOfSameBookTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().title("Concorrência").author("Pedro").isbn("concurrent-1").build());
+        AtomicInteger loaned = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                try {
+                    loanService.save(newLoan(book, "Cliente " + thread));
+                    loaned.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(loaned.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(THREADS * 20 - 1);
+        assertThat(loanRepository.existsByBookAndNotReturned(book)).isTrue();
+        assertThat(loanRepository.countByBook(book)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar livros distintos em paralelo sem rejeições")
+    public void concurrentCheckoutOfDistinctBooksTest() throws Exception {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < THREADS * 10; i++) {
+            books.add(Book.builder().title("Livro " + i).author("Pedro").isbn("distinct-" + i).build());
+        }
+        List<Book> saved = bookRepository.saveAll(books);
+        AtomicInteger loaned = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            for (int i = thread; i < saved.size(); i += THREADS) {
+                loanService.save(newLoan(saved.get(i), "Cliente " + thread));
+                loaned.incrementAndGet();
+            }
+        });
+
+        assertThat(loaned.get()).isEqualTo(saved.size());
+    }
+
+    private Loan newLoan(Book book, String customer) {
+        return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).build();
+    }
+
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int id = thread;
+                Callable<Void> callable = () -> {
+                    start.await();
+                    task.run(id);
+                    return null;
+                };
+                futures.add(executor.submit(callable));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
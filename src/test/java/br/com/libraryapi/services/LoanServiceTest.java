@@ -1,24 +1,38 @@
 package br.com.libraryapi.services;
 
+import br.com.libraryapi.api.dto.LoanBookDTO;
 import br.com.libraryapi.api.dto.LoanFilterDTO;
+import br.com.libraryapi.api.dto.LoanReturnsReportDTO;
+import br.com.libraryapi.api.services.ActiveLoanIndex;
 import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
 import br.com.libraryapi.api.services.impl.LoanServiceImpl;
+import br.com.libraryapi.api.services.impl.TotalCountServiceImpl;
 import br.com.libraryapi.exceptions.BusinessException;
 import br.com.libraryapi.model.entity.Book;
 import br.com.libraryapi.model.entity.Loan;
+import br.com.libraryapi.model.repositories.LoanQuery;
 import br.com.libraryapi.model.repositories.LoanRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,15 +49,25 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    ActiveLoanIndex activeLoanIndex;
+
+    @MockBean
+    OverdueLoanTracker overdueLoanTracker;
+
+    MeterRegistry meterRegistry;
+
     @BeforeEach
     public void setUp() {
-        this.service = new LoanServiceImpl(repository);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new LoanServiceImpl(repository, new TotalCountServiceImpl(Duration.ofMinutes(1), 100), activeLoanIndex,
+                overdueLoanTracker, meterRegistry);
     }
 
     @Test
     @DisplayName("Deve salvar um empréstimo")
     public void saveLoanTest() {
-        Book book = Book.builder().build();
+        Book book = Book.builder().id(1L).build();
         String customer = "João";
 
         Loan savingLoan = Loan.builder()
@@ -59,7 +83,7 @@ public class LoanServiceTest {
                 .book(book)
                 .build();
 
-        when( repository.existsByBookAndNotReturned(book) ).thenReturn(false);
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(true);
         when( repository.save(savingLoan) ).thenReturn(savedLoan);
 
         Loan loan = service.save(savingLoan);
@@ -68,6 +92,7 @@ public class LoanServiceTest {
         assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        verify(overdueLoanTracker).track(1L, savedLoan.getLoanDate());
     }
 
     @Test
@@ -82,6 +107,7 @@ public class LoanServiceTest {
                 .loanDate(LocalDate.now())
                 .build();
 
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(false);
         when( repository.existsByBookAndNotReturned(book) ).thenReturn(true);
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
@@ -91,6 +117,97 @@ public class LoanServiceTest {
                 .hasMessage("Book already loaned");
 
         verify(repository, never()).save(savingLoan);
+        assertThat(meterRegistry.get("library.loans.rejected").tag("reason", "already_loaned").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco quando o índice indicar o livro como emprestado")
+    public void staleIndexIsConfirmedTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+        Loan savedLoan = Loan.builder().id(1L).book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(false);
+        when( repository.existsByBookAndNotReturned(book) ).thenReturn(false);
+        when( repository.save(savingLoan) ).thenReturn(savedLoan);
+
+        Loan loan = service.save(savingLoan);
+
+        assertThat(loan.getId()).isEqualTo(1L);
+        verify(activeLoanIndex, never()).markReturned(1L);
+    }
+
+    @Test
+    @DisplayName("Deve manter a reserva apenas quando o banco recusar um segundo empréstimo em aberto")
+    public void openLoanConstraintKeepsReservationTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(true);
+        when( repository.save(savingLoan) ).thenThrow(constraintViolation("PUBLIC.UK_LOAN_OPEN_BOOK_ID_INDEX_2"));
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
+        verify(activeLoanIndex, never()).markReturned(1L);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro no índice quando outra restrição do banco falhar")
+    public void otherConstraintReleasesIndexTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(true);
+        when( repository.save(savingLoan) ).thenThrow(constraintViolation("fk_loan_book"));
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+        verify(activeLoanIndex).markReturned(1L);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro no índice quando o empréstimo não puder ser salvo")
+    public void releaseIndexOnFailedSaveTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(true);
+        when( repository.save(savingLoan) ).thenThrow(new IllegalStateException("database down"));
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        verify(activeLoanIndex).markReturned(1L);
+    }
+
+    @Test
+    @DisplayName("Não deve liberar no índice uma marca que não foi feita por este empréstimo")
+    public void keepForeignMarkOnFailedSaveTest() {
+        Book book = Book.builder().id(1L).build();
+        Loan savingLoan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+
+        when( activeLoanIndex.markLoaned(1L) ).thenReturn(false);
+        when( repository.existsByBookAndNotReturned(book) ).thenReturn(false);
+        when( repository.save(savingLoan) ).thenThrow(new IllegalStateException("database down"));
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        verify(activeLoanIndex, never()).markReturned(1L);
+    }
+
+    @Test
+    @DisplayName("Deve liberar o livro no índice quando o empréstimo for devolvido")
+    public void returnedLoanReleasesIndexTest() {
+        Loan loan = Loan.builder().id(1L).returned(true).book(Book.builder().id(7L).build()).build();
+        when( repository.save(loan) ).thenReturn(loan);
+
+        service.update(loan);
+
+        verify(activeLoanIndex).markReturned(7L);
+        verify(overdueLoanTracker).untrack(1L);
     }
 
     @Test
@@ -137,6 +254,63 @@ public class LoanServiceTest {
         verify(repository).save(loan);
     }
 
+    @Test
+    @DisplayName("Deve devolver um empréstimo com uma única atualização")
+    public void returnLoanTest() {
+        when( repository.markReturned(1L) ).thenReturn(1);
+        when( repository.findBookIdById(1L) ).thenReturn(Optional.of(7L));
+
+        assertThat(service.returnLoan(1L)).isEqualTo(LoanService.ReturnResult.RETURNED);
+
+        verify(repository, never()).save(Mockito.any(Loan.class));
+        verify(activeLoanIndex).markReturned(7L);
+        verify(overdueLoanTracker).untrack(1L);
+    }
+
+    @Test
+    @DisplayName("Deve informar quando não houver empréstimo para devolver")
+    public void returnInexistentLoanTest() {
+        when( repository.markReturned(1L) ).thenReturn(0);
+        when( repository.existsById(1L) ).thenReturn(false);
+
+        assertThat(service.returnLoan(1L)).isEqualTo(LoanService.ReturnResult.NOT_FOUND);
+
+        verify(repository, never()).findBookIdById(1L);
+        verifyNoInteractions(activeLoanIndex, overdueLoanTracker);
+    }
+
+    @Test
+    @DisplayName("Não deve alterar nada ao devolver de novo um empréstimo já devolvido")
+    public void returnAlreadyReturnedLoanTest() {
+        when( repository.markReturned(1L) ).thenReturn(0);
+        when( repository.existsById(1L) ).thenReturn(true);
+
+        assertThat(service.returnLoan(1L)).isEqualTo(LoanService.ReturnResult.ALREADY_RETURNED);
+
+        verify(repository, never()).findBookIdById(1L);
+        verifyNoInteractions(activeLoanIndex, overdueLoanTracker);
+    }
+
+    @Test
+    @DisplayName("Deve devolver vários empréstimos e informar os ids e isbns sem empréstimo em aberto")
+    public void returnAllTest() {
+        List<Long> ids = Arrays.asList(1L, 2L);
+        List<String> isbns = Arrays.asList("123", "456");
+        when( repository.findOpenLoanBooksByIds(ids) ).thenReturn(Collections.singletonList(new LoanBookDTO(1L, 10L, "111")));
+        when( repository.findOpenLoanBooksByIsbns(isbns) ).thenReturn(Collections.singletonList(new LoanBookDTO(3L, 30L, "123")));
+        when( repository.markAllReturned(Mockito.anyCollection()) ).thenReturn(2);
+
+        LoanReturnsReportDTO report = service.returnAll(ids, isbns);
+
+        assertThat(report.getReturned()).isEqualTo(2);
+        assertThat(report.getUnmatchedIds()).containsExactly(2L);
+        assertThat(report.getUnmatchedIsbns()).containsExactly("456");
+        verify(repository).markAllReturned(new HashSet<>(Arrays.asList(1L, 3L)));
+        verify(activeLoanIndex).markReturned(10L);
+        verify(activeLoanIndex).markReturned(30L);
+        verify(overdueLoanTracker).untrack(3L);
+    }
+
     @Test
     @DisplayName("Deve filtrar empréstimos pelas propriedades")
     public void findLoanTest() {
@@ -152,13 +326,10 @@ public class LoanServiceTest {
 
         List<Loan> loans = Collections.singletonList(loan);
 
-        Page<Loan> page = new PageImpl<Loan>(loans, pageRequest, loans.size());
+        Slice<Loan> slice = new SliceImpl<Loan>(loans, pageRequest, false);
 
-        Mockito.when(repository.findByBookIsbnOrCustomer(
-                    Mockito.anyString(),
-                    Mockito.anyString(),
-                    Mockito.any(Pageable.class)))
-                .thenReturn(page);
+        Mockito.when(repository.findSlice(Mockito.any(LoanQuery.class), Mockito.any(Pageable.class)))
+                .thenReturn(slice);
 
         Page<Loan> result = service.find(filterDTO, pageRequest);
 
@@ -166,5 +337,34 @@ public class LoanServiceTest {
         assertThat(result.getContent()).isEqualTo(loans);
         assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+        verify(repository, never()).count(Mockito.any(LoanQuery.class));
+    }
+
+    @Test
+    @DisplayName("Deve recalcular o total de empréstimos após um novo empréstimo")
+    public void findLoanCountInvalidatedOnSaveTest() {
+        LoanFilterDTO filterDTO = LoanFilterDTO.builder().customer("João").build();
+        Book book = Book.builder().id(15L).isbn("12547").build();
+        Loan loan = Loan.builder().id(1L).loanDate(LocalDate.now()).customer("João").book(book).build();
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        when(repository.findSlice(Mockito.any(LoanQuery.class), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<Loan>(Collections.singletonList(loan), pageRequest, true));
+        when(repository.count(Mockito.any(LoanQuery.class))).thenReturn(5L, 6L);
+        when(activeLoanIndex.markLoaned(15L)).thenReturn(true);
+        when(repository.save(Mockito.any(Loan.class))).thenReturn(loan);
+
+        assertThat(service.find(filterDTO, pageRequest).getTotalElements()).isEqualTo(5);
+        assertThat(service.find(filterDTO, pageRequest).getTotalElements()).isEqualTo(5);
+
+        service.save(Loan.builder().book(book).customer("João").loanDate(LocalDate.now()).build());
+
+        assertThat(service.find(filterDTO, pageRequest).getTotalElements()).isEqualTo(6);
+        verify(repository, times(2)).count(Mockito.any(LoanQuery.class));
+    }
+
+    private DataIntegrityViolationException constraintViolation(String constraint) {
+        return new DataIntegrityViolationException("constraint violation",
+                new ConstraintViolationException("constraint violation", new SQLException(), constraint));
     }
 }
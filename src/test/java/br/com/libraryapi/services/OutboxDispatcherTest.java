@@ -0,0 +1,104 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.EmailService;
+import br.com.libraryapi.api.services.MailTransport;
+import br.com.libraryapi.api.services.impl.OutboxDispatcher;
+import br.com.libraryapi.model.entity.OutboxMessage;
+import br.com.libraryapi.model.entity.OutboxStatus;
+import br.com.libraryapi.model.repositories.OutboxMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "application.outbox.enabled=false",
+        "application.outbox.initial-backoff=PT0S",
+        "application.outbox.max-attempts=2"
+})
+@ActiveProfiles("test")
+public class OutboxDispatcherTest {
+
+    @Autowired
+    EmailService emailService;
+
+    @Autowired
+    OutboxDispatcher dispatcher;
+
+    @Autowired
+    OutboxMessageRepository repository;
+
+    @MockBean
+    MailTransport transport;
+
+    @BeforeEach
+    public void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve gravar as mensagens no outbox sem enviar na chamada")
+    public void sendMailsWritesOutboxTest() {
+        emailService.sendMails("Atrasado", Arrays.asList("a@email.com", "b@email.com"));
+
+        assertThat(repository.countByStatus(OutboxStatus.PENDING)).isEqualTo(2);
+        Mockito.verifyNoInteractions(transport);
+    }
+
+    @Test
+    @DisplayName("Deve enviar cada mensagem pendente ao seu destinatário")
+    public void dispatchBatchTest() {
+        emailService.sendMails("Atrasado", Arrays.asList("a@email.com", "b@email.com"));
+        emailService.sendMails("Outro", Collections.singletonList("c@email.com"));
+
+        int dispatched = dispatcher.dispatchBatch();
+
+        assertThat(dispatched).isEqualTo(3);
+        Mockito.verify(transport).send("Atrasado", Collections.singletonList("a@email.com"));
+        Mockito.verify(transport).send("Atrasado", Collections.singletonList("b@email.com"));
+        Mockito.verify(transport).send("Outro", Collections.singletonList("c@email.com"));
+        assertThat(repository.countByStatus(OutboxStatus.SENT)).isEqualTo(3);
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reagendar as mensagens que falharem e desistir após o limite de tentativas")
+    public void retryTest() {
+        Mockito.doThrow(new IllegalStateException("smtp down"))
+                .doNothing()
+                .when(transport).send(Mockito.anyString(), Mockito.anyList());
+        emailService.sendMails("Atrasado", Collections.singletonList("a@email.com"));
+
+        dispatcher.dispatchBatch();
+        OutboxMessage retried = repository.findAll().get(0);
+        dispatcher.dispatchBatch();
+
+        assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).isEqualTo("smtp down");
+        assertThat(repository.countByStatus(OutboxStatus.SENT)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve marcar como falha quando as tentativas se esgotarem")
+    public void exhaustedRetriesTest() {
+        Mockito.doThrow(new IllegalStateException("smtp down"))
+                .when(transport).send(Mockito.anyString(), Mockito.anyList());
+        emailService.sendMails("Atrasado", Collections.singletonList("a@email.com"));
+
+        dispatcher.dispatchBatch();
+        dispatcher.dispatchBatch();
+
+        assertThat(repository.countByStatus(OutboxStatus.FAILED)).isEqualTo(1);
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.dto.LateLoanDTO;
+import br.com.libraryapi.api.services.EmailService;
+import br.com.libraryapi.api.services.LoanService;
+import br.com.libraryapi.api.services.OverdueLoanTracker;
+import br.com.libraryapi.api.services.ScheduleService;
+import br.com.libraryapi.model.entity.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+    private static final String MESSAGE = "Empréstimo atrasado";
+    private static final LocalDate TODAY = LocalDate.of(2020, 10, 10);
+    private static final String EMAIL_1 = "customer1@email.com";
+    private static final String EMAIL_2 = "customer2@email.com";
+    private static final String EMAIL_5 = "customer5@email.com";
+
+    ScheduleService service;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @MockBean
+    OverdueLoanTracker overdueLoanTracker;
+
+    @BeforeEach
+    public void setUp() {
+        service = new ScheduleService(loanService, emailService, overdueLoanTracker, true, MESSAGE, 2, 2, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve notificar os clientes com empréstimos vencidos em lotes de tamanho fixo")
+    public void notifyOverdueLoansInChunksTest() {
+        List<String> firstChunk = Arrays.asList(EMAIL_1, EMAIL_2);
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Arrays.asList(1L, 2L, 5L));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(EMAIL_2, EMAIL_1));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Collections.singletonList(5L)))
+                .thenReturn(Collections.singletonList(EMAIL_5));
+        Mockito.when(loanService.getLateLoansOf(TODAY, firstChunk))
+                .thenReturn(Arrays.asList(lateLoan(1, EMAIL_1), lateLoan(2, EMAIL_2)));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Collections.singletonList(EMAIL_5)))
+                .thenReturn(Collections.singletonList(lateLoan(5, EMAIL_5)));
+
+        ScheduleService.Report report = service.notifyOverdueLoans(TODAY);
+
+        assertThat(report.getCustomers()).isEqualTo(3);
+        assertThat(report.getLoans()).isEqualTo(3);
+        assertThat(report.getBatches()).isEqualTo(2);
+        assertThat(report.getSent()).isEqualTo(3);
+        assertThat(report.getFailed()).isZero();
+        Mockito.verify(emailService).sendMails(Mockito.<Map<String, String>>argThat(digests -> digests.keySet().equals(new HashSet<>(firstChunk))));
+        Mockito.verify(emailService).sendMails(Mockito.<Map<String, String>>argThat(digests -> digests.keySet().equals(Collections.singleton(EMAIL_5))));
+        Mockito.verify(overdueLoanTracker).remindOn(Arrays.asList(1L, 2L), TODAY.plusDays(1));
+        Mockito.verify(overdueLoanTracker).remindOn(Collections.singletonList(5L), TODAY.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Deve enviar um único resumo por cliente com todos os livros atrasados")
+    public void sendOneDigestPerCustomerTest() {
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Arrays.asList(1L, 2L));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Arrays.asList(1L, 2L))).thenReturn(Collections.singletonList(EMAIL_1));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Collections.singletonList(EMAIL_1)))
+                .thenReturn(Arrays.asList(lateLoan(1, EMAIL_1), lateLoan(2, EMAIL_1)));
+
+        ScheduleService.Report report = service.notifyOverdueLoans(TODAY);
+
+        ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(emailService).sendMails(captor.capture());
+        String digest = captor.getValue().get(EMAIL_1);
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(digest).startsWith(MESSAGE)
+                .contains("- Livro 1 (ISBN isbn-1), emprestado em 30/09/2020")
+                .contains("- Livro 2 (ISBN isbn-2), emprestado em 30/09/2020");
+        assertThat(report.getCustomers()).isEqualTo(1);
+        assertThat(report.getLoans()).isEqualTo(2);
+        assertThat(report.getSent()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve limitar o resumo ao tamanho da mensagem quando os títulos forem longos")
+    public void longTitlesDigestFitsMessageTest() {
+        String longTitle = String.join("", Collections.nCopies(255, "a"));
+        List<Long> ids = new ArrayList<>();
+        List<LateLoanDTO> loans = new ArrayList<>();
+        for (long id = 1; id <= 150; id++) {
+            ids.add(id);
+            loans.add(new LateLoanDTO(id, "Customer", EMAIL_1, TODAY.minusDays(10), longTitle, "isbn-" + id));
+        }
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(ids);
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Mockito.anyCollection())).thenReturn(Collections.singletonList(EMAIL_1));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Collections.singletonList(EMAIL_1))).thenReturn(loans);
+
+        service.notifyOverdueLoans(TODAY);
+
+        ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(emailService).sendMails(captor.capture());
+        String digest = captor.getValue().get(EMAIL_1);
+        assertThat(digest.length()).isLessThanOrEqualTo(OutboxMessage.MAX_MESSAGE_LENGTH);
+        assertThat(digest).contains("- " + longTitle.substring(0, 117) + "... (ISBN isbn-1)")
+                .doesNotContain(longTitle)
+                .containsPattern("e mais \\d+ livros\\.\n$");
+    }
+
+    @Test
+    @DisplayName("Deve continuar a notificação e tentar de novo o lote que falhar")
+    public void failedBatchIsRetriedTest() {
+        List<String> firstChunk = Arrays.asList(EMAIL_1, EMAIL_2);
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Arrays.asList(1L, 2L, 5L));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Arrays.asList(1L, 2L))).thenReturn(firstChunk);
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Collections.singletonList(5L)))
+                .thenReturn(Collections.singletonList(EMAIL_5));
+        Mockito.when(loanService.getLateLoansOf(TODAY, firstChunk))
+                .thenReturn(Arrays.asList(lateLoan(1, EMAIL_1), lateLoan(2, EMAIL_2)));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Collections.singletonList(EMAIL_5)))
+                .thenReturn(Collections.singletonList(lateLoan(5, EMAIL_5)));
+        Mockito.doThrow(new IllegalStateException("smtp down")).when(emailService)
+                .sendMails(Mockito.<Map<String, String>>argThat(digests -> digests.containsKey(EMAIL_1)));
+
+        ScheduleService.Report report = service.notifyOverdueLoans(TODAY);
+
+        assertThat(report.getSent()).isEqualTo(1);
+        assertThat(report.getFailed()).isEqualTo(2);
+        Mockito.verify(overdueLoanTracker).remindOn(Arrays.asList(1L, 2L), TODAY);
+        Mockito.verify(overdueLoanTracker).remindOn(Collections.singletonList(5L), TODAY.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Deve devolver à fila os empréstimos não processados quando a consulta falhar")
+    public void failedQueryRequeuesPendingLoansTest() {
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Arrays.asList(1L, 2L, 5L));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(EMAIL_1, EMAIL_2));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Collections.singletonList(5L)))
+                .thenReturn(Collections.singletonList(EMAIL_5));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Arrays.asList(EMAIL_1, EMAIL_2)))
+                .thenReturn(Arrays.asList(lateLoan(1, EMAIL_1), lateLoan(2, EMAIL_2)));
+        Mockito.when(loanService.getLateLoansOf(TODAY, Collections.singletonList(EMAIL_5)))
+                .thenThrow(new IllegalStateException("database down"));
+
+        Throwable exception = catchThrowable(() -> service.notifyOverdueLoans(TODAY));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        Mockito.verify(overdueLoanTracker).remindOn(Arrays.asList(1L, 2L), TODAY.plusDays(1));
+        Mockito.verify(overdueLoanTracker).remindOn(Collections.singletonList(5L), TODAY);
+    }
+
+    @Test
+    @DisplayName("Não deve reagendar empréstimos devolvidos antes da notificação")
+    public void returnedOverdueLoanIsNotRemindedTest() {
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Collections.singletonList(1L));
+        Mockito.when(loanService.getCustomersWithOpenLoansIn(Collections.singletonList(1L))).thenReturn(Collections.emptyList());
+
+        ScheduleService.Report report = service.notifyOverdueLoans(TODAY);
+
+        assertThat(report.getLoans()).isZero();
+        Mockito.verify(overdueLoanTracker, Mockito.never()).remindOn(Mockito.any(), Mockito.any());
+        Mockito.verifyNoInteractions(emailService);
+    }
+
+    @Test
+    @DisplayName("Não deve executar a notificação quando desabilitada nesta instância")
+    public void disabledNotificationTest() {
+        ScheduleService disabled = new ScheduleService(loanService, emailService, overdueLoanTracker, false, MESSAGE, 2, 2, 1);
+        try {
+            disabled.sendMailToLateLoans();
+        } finally {
+            disabled.shutdown();
+        }
+
+        Mockito.verifyNoInteractions(overdueLoanTracker, loanService, emailService);
+    }
+
+    @Test
+    @DisplayName("Não deve consultar o banco quando nenhum empréstimo vencer")
+    public void noOverdueLoansTest() {
+        Mockito.when(overdueLoanTracker.pollOverdue(TODAY)).thenReturn(Collections.emptyList());
+
+        ScheduleService.Report report = service.notifyOverdueLoans(TODAY);
+
+        assertThat(report.getLoans()).isZero();
+        Mockito.verifyNoInteractions(loanService, emailService);
+    }
+
+    private LateLoanDTO lateLoan(long id, String email) {
+        return new LateLoanDTO(id, "Customer " + id, email, TODAY.minusDays(10), "Livro " + id, "isbn-" + id);
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.impl.SmtpMailTransport;
+import br.com.libraryapi.exceptions.MailDeliveryException;
+import br.com.libraryapi.support.FakeSmtpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SmtpMailTransportTest {
+
+    FakeSmtpServer server;
+    SmtpMailTransport transport;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (transport != null) {
+            transport.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve enviar para vários destinatários por mensagem reaproveitando a conexão")
+    public void sendInChunksOverOneConnectionTest() throws Exception {
+        server = new FakeSmtpServer(true, 0, true);
+        transport = transport(server.getPort(), 1, 2, 0);
+
+        transport.send("Empréstimo atrasado", recipients(5));
+        transport.send("Empréstimo atrasado", recipients(1));
+
+        assertThat(server.getConnections()).isEqualTo(1);
+        assertThat(server.getMessages()).extracting(message -> message.getRecipients().size()).containsExactly(2, 2, 1, 1);
+        String data = server.getMessages().get(0).getData();
+        String body = data.substring(data.indexOf("\r\n\r\n") + 4).replace("\r\n", "");
+        assertThat(new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8)).isEqualTo("Empréstimo atrasado");
+    }
+
+    @Test
+    @DisplayName("Deve agrupar os comandos em menos idas e voltas quando o servidor suportar PIPELINING")
+    public void pipeliningTest() throws Exception {
+        long pipelined = roundTripsFor(true);
+        long sequential = roundTripsFor(false);
+
+        assertThat(pipelined).isLessThan(sequential / 5);
+    }
+
+    @Test
+    @DisplayName("Não deve falhar quando o servidor recusar parte dos destinatários")
+    public void rejectedRecipientsTest() throws Exception {
+        server = new FakeSmtpServer(true, 0, true);
+        transport = transport(server.getPort(), 1, 100, 0);
+
+        transport.send("Atrasado", Arrays.asList("a@email.com", "reject@email.com", "b@email.com"));
+        transport.send("Atrasado", Arrays.asList("reject@email.com"));
+
+        assertThat(server.getMessages()).hasSize(1);
+        assertThat(server.getMessages().get(0).getRecipients()).containsExactly("a@email.com", "b@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de entrega quando o servidor adiar um destinatário")
+    public void deferredRecipientTest() throws Exception {
+        server = new FakeSmtpServer(true, 0, true);
+        transport = transport(server.getPort(), 1, 100, 0);
+
+        Throwable exception = catchThrowable(() -> transport.send("Atrasado", Arrays.asList("greylist@email.com")));
+        transport.send("Atrasado", Arrays.asList("a@email.com"));
+
+        assertThat(exception).isInstanceOf(MailDeliveryException.class).hasMessageContaining("Greylisted");
+        assertThat(server.getConnections()).isEqualTo(1);
+        assertThat(server.getMessages()).extracting(message -> message.getRecipients().size()).containsExactly(1);
+    }
+
+    @Test
+    @DisplayName("Não deve abrir mais conexões do que o tamanho do pool")
+    public void poolSizeTest() throws Exception {
+        server = new FakeSmtpServer(true, 200, false);
+        transport = transport(server.getPort(), 2, 10, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> sends = new ArrayList<>();
+
+        for (int i = 0; i < 32; i++) {
+            sends.add(executor.submit(() -> transport.send("Atrasado", recipients(10))));
+        }
+        for (Future<?> send : sends) {
+            send.get();
+        }
+        executor.shutdown();
+
+        assertThat(server.getConnections()).isLessThanOrEqualTo(2);
+        assertThat(server.getRecipients()).isEqualTo(320);
+    }
+
+    @Test
+    @DisplayName("Deve respeitar a taxa de envio configurada")
+    public void rateLimitTest() throws Exception {
+        server = new FakeSmtpServer(true, 0, false);
+        transport = transport(server.getPort(), 1, 10, 100);
+
+        long start = System.nanoTime();
+        transport.send("Atrasado", recipients(30));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(180));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de entrega quando o servidor estiver indisponível")
+    public void unavailableServerTest() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        transport = transport(port, 1, 10, 0);
+
+        Throwable exception = catchThrowable(() -> transport.send("Atrasado", recipients(1)));
+
+        assertThat(exception).isInstanceOf(MailDeliveryException.class);
+    }
+
+    private long roundTripsFor(boolean pipelining) throws Exception {
+        try (FakeSmtpServer smtp = new FakeSmtpServer(pipelining, 0, false)) {
+            SmtpMailTransport smtpTransport = transport(smtp.getPort(), 1, 50, 0);
+            long before = smtp.getRoundTrips();
+            smtpTransport.send("Atrasado", recipients(50));
+            long roundTrips = smtp.getRoundTrips() - before;
+            smtpTransport.close();
+            return roundTrips;
+        }
+    }
+
+    private SmtpMailTransport transport(int port, int poolSize, int maxRecipients, double rate) {
+        return new SmtpMailTransport("localhost", port, "library.test", false, "", "",
+                "biblioteca@email.com", "Empréstimos", poolSize, maxRecipients, rate,
+                Duration.ofSeconds(2), Duration.ofSeconds(5));
+    }
+
+    private List<String> recipients(int count) {
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add("customer" + i + "@email.com");
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.libraryapi.services;
+
+import br.com.libraryapi.api.services.TotalCountService;
+import br.com.libraryapi.api.services.impl.TotalCountServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TotalCountServiceTest {
+
+    @Test
+    @DisplayName("Deve reutilizar o total enquanto não houver escrita na região")
+    public void cachedCountTest() {
+        TotalCountService service = new TotalCountServiceImpl(Duration.ofMinutes(1), 100);
+        AtomicLong counter = new AtomicLong();
+
+        long first = service.count("loans", "isbn=1", counter::incrementAndGet);
+        long second = service.count("loans", "isbn=1", counter::incrementAndGet);
+        long otherFilter = service.count("loans", "isbn=2", counter::incrementAndGet);
+
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(1);
+        assertThat(otherFilter).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve recalcular o total após invalidar a região")
+    public void invalidateTest() {
+        TotalCountService service = new TotalCountServiceImpl(Duration.ofMinutes(1), 100);
+        AtomicLong counter = new AtomicLong();
+
+        service.count("loans", "isbn=1", counter::incrementAndGet);
+        service.count("books", "title=x", counter::incrementAndGet);
+        service.invalidate("loans");
+
+        assertThat(service.count("loans", "isbn=1", counter::incrementAndGet)).isEqualTo(3);
+        assertThat(service.count("books", "title=x", counter::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve recalcular o total após expirar o tempo de vida")
+    public void expiredCountTest() {
+        TotalCountService service = new TotalCountServiceImpl(Duration.ZERO, 100);
+        AtomicLong counter = new AtomicLong();
+
+        service.count("loans", "isbn=1", counter::incrementAndGet);
+
+        assertThat(service.count("loans", "isbn=1", counter::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Não deve contar quando a última página já define o total")
+    public void lastPageWithoutCountTest() {
+        TotalCountService service = new TotalCountServiceImpl(Duration.ofMinutes(1), 100);
+        SliceImpl<String> slice = new SliceImpl<>(Arrays.asList("a", "b"), PageRequest.of(3, 5), false);
+
+        Page<String> page = service.toPage(slice, "books", "", () -> {
+            throw new IllegalStateException("count should not run");
+        });
+
+        assertThat(page.getTotalElements()).isEqualTo(17);
+    }
+
+    @Test
+    @DisplayName("Deve contar quando existir próxima página")
+    public void pageWithNextCountTest() {
+        TotalCountService service = new TotalCountServiceImpl(Duration.ofMinutes(1), 100);
+        SliceImpl<String> slice = new SliceImpl<>(Collections.singletonList("a"), PageRequest.of(0, 1), true);
+
+        Page<String> page = service.toPage(slice, "books", "", () -> 40L);
+
+        assertThat(page.getTotalElements()).isEqualTo(40);
+    }
+}
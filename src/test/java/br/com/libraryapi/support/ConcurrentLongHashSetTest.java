@@ -0,0 +1,88 @@
+package br.com.libraryapi.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentLongHashSetTest {
+
+    @Test
+    @DisplayName("Deve adicionar, consultar e remover valores")
+    public void addContainsRemoveTest() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(4, 2);
+
+        assertThat(set.add(1L)).isTrue();
+        assertThat(set.add(1L)).isFalse();
+        assertThat(set.add(0L)).isTrue();
+        assertThat(set.contains(1L)).isTrue();
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(set.contains(2L)).isFalse();
+
+        assertThat(set.remove(1L)).isTrue();
+        assertThat(set.remove(1L)).isFalse();
+        assertThat(set.contains(1L)).isFalse();
+        assertThat(set.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve se comportar como um conjunto comum após muitas inserções e remoções")
+    public void randomOperationsTest() {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(16, 4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(5_000) + 1;
+            if (random.nextBoolean()) {
+                assertThat(set.add(value)).isEqualTo(expected.add(value));
+            } else {
+                assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        for (long value = 1; value <= 5_000; value++) {
+            assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve permitir que apenas uma thread reserve cada valor")
+    public void concurrentAddTest() throws InterruptedException {
+        ConcurrentLongHashSet set = new ConcurrentLongHashSet(16, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (long value = 1; value <= 10_000; value++) {
+                    if (set.add(value)) {
+                        winners.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(winners.get()).isEqualTo(10_000);
+        assertThat(set.size()).isEqualTo(10_000);
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.libraryapi.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountingBloomFilterTest {
+
+    @Test
+    @DisplayName("Deve reconhecer todos os valores adicionados")
+    public void noFalseNegativesTest() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("978" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("978" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter a taxa de falsos positivos próxima da configurada")
+    public void falsePositiveRateTest() {
+        CountingBloomFilter filter = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("978" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("isbn-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Deve esquecer um valor removido")
+    public void removeTest() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        filter.add("123");
+        filter.add("456");
+
+        filter.remove("123");
+
+        assertThat(filter.mightContain("123")).isFalse();
+        assertThat(filter.mightContain("456")).isTrue();
+    }
+}
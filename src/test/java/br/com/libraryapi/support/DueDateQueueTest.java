@@ -0,0 +1,50 @@
+package br.com.libraryapi.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DueDateQueueTest {
+    private static final LocalDate TODAY = LocalDate.of(2020, 10, 10);
+
+    @Test
+    @DisplayName("Deve retornar apenas os itens vencidos até a data informada")
+    public void pollDueTest() {
+        DueDateQueue queue = new DueDateQueue();
+        queue.schedule(1L, TODAY.minusDays(2));
+        queue.schedule(2L, TODAY);
+        queue.schedule(3L, TODAY.plusDays(1));
+
+        assertThat(queue.pollDue(TODAY)).containsExactly(1L, 2L);
+        assertThat(queue.pollDue(TODAY)).isEmpty();
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.nextDueDate()).contains(TODAY.plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Deve reagendar um item já agendado para a nova data")
+    public void rescheduleTest() {
+        DueDateQueue queue = new DueDateQueue();
+        queue.schedule(1L, TODAY);
+        queue.schedule(1L, TODAY.plusDays(3));
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.pollDue(TODAY)).isEmpty();
+        assertThat(queue.pollDue(TODAY.plusDays(3))).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve cancelar um item agendado")
+    public void cancelTest() {
+        DueDateQueue queue = new DueDateQueue();
+        queue.schedule(1L, TODAY);
+
+        assertThat(queue.cancel(1L)).isTrue();
+        assertThat(queue.cancel(1L)).isFalse();
+        assertThat(queue.pollDue(TODAY)).isEmpty();
+        assertThat(queue.nextDueDate()).isEmpty();
+    }
+}
@@ -0,0 +1,188 @@
+package br.com.libraryapi.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class FakeSmtpServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fake-smtp");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final boolean pipelining;
+    private final long roundTripNanos;
+    private final boolean keepMessages;
+    private final ConcurrentLinkedQueue<Message> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong recipients = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    public FakeSmtpServer(boolean pipelining, long roundTripMicros, boolean keepMessages) throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.pipelining = pipelining;
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        this.keepMessages = keepMessages;
+        executor.execute(this::accept);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<Message> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public long getRecipients() {
+        return recipients.get();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket client = socket;
+             InputStream input = new BufferedInputStream(client.getInputStream());
+             OutputStream output = new BufferedOutputStream(client.getOutputStream())) {
+            reply(input, output, "220 fake.smtp ESMTP");
+            List<String> accepted = new ArrayList<>();
+            String line;
+            while ((line = readLine(input)) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(input, output, pipelining
+                            ? "250-fake.smtp\r\n250-PIPELINING\r\n250 8BITMIME"
+                            : "250-fake.smtp\r\n250 8BITMIME");
+                } else if (command.startsWith("MAIL FROM:")) {
+                    accepted.clear();
+                    reply(input, output, "250 OK");
+                } else if (command.startsWith("RCPT TO:")) {
+                    if (command.contains("REJECT")) {
+                        reply(input, output, "550 No such user");
+                    } else if (command.contains("GREYLIST")) {
+                        reply(input, output, "450 Greylisted, try again later");
+                    } else {
+                        accepted.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+                        reply(input, output, "250 OK");
+                    }
+                } else if (command.equals("DATA")) {
+                    if (accepted.isEmpty()) {
+                        reply(input, output, "554 No valid recipients");
+                        continue;
+                    }
+                    reply(input, output, "354 End data with <CR><LF>.<CR><LF>");
+                    String data = readData(input);
+                    recipients.addAndGet(accepted.size());
+                    if (keepMessages) {
+                        messages.add(new Message(new ArrayList<>(accepted), data));
+                    }
+                    accepted.clear();
+                    reply(input, output, "250 Queued");
+                } else if (command.equals("RSET") || command.equals("NOOP")) {
+                    accepted.clear();
+                    reply(input, output, "250 OK");
+                } else if (command.equals("QUIT")) {
+                    reply(input, output, "221 Bye");
+                    return;
+                } else {
+                    reply(input, output, "502 Command not implemented");
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void reply(InputStream input, OutputStream output, String reply) throws IOException {
+        output.write(reply.getBytes(StandardCharsets.US_ASCII));
+        output.write('\r');
+        output.write('\n');
+        if (input.available() == 0) {
+            roundTrips.incrementAndGet();
+            if (roundTripNanos > 0) {
+                LockSupport.parkNanos(roundTripNanos);
+            }
+            output.flush();
+        }
+    }
+
+    private String readData(InputStream input) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = readLine(input)) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = input.read()) != '\n') {
+            if (b < 0) {
+                return null;
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    public static class Message {
+        private final List<String> recipients;
+        private final String data;
+
+        Message(List<String> recipients, String data) {
+            this.recipients = recipients;
+            this.data = data;
+        }
+
+        public List<String> getRecipients() {
+            return recipients;
+        }
+
+        public String getData() {
+            return data;
+        }
+    }
+}
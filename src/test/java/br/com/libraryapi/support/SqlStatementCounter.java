@@ -0,0 +1,91 @@
+package br.com.libraryapi.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the SQL issued on the current thread between {@link #reset()} and {@link #clear()}. Register it with
+ * {@code @ExtendWith(SqlStatementCounter.class)} so collection stops after each test.
+ */
+public class SqlStatementCounter implements StatementInspector, AfterEachCallback {
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+            "br.com.libraryapi.support.SqlStatementCounter";
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        clear();
+    }
+
+    public static void reset() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static void clear() {
+        STATEMENTS.remove();
+    }
+
+    public static List<String> statements() {
+        List<String> statements = STATEMENTS.get();
+        return statements == null ? new ArrayList<>() : new ArrayList<>(statements);
+    }
+
+    public static long total() {
+        return statements().size();
+    }
+
+    public static long selects() {
+        return count(sql -> sql.startsWith("select") || sql.startsWith("with"));
+    }
+
+    public static long inserts() {
+        return count(sql -> sql.startsWith("insert"));
+    }
+
+    public static long updates() {
+        return count(sql -> sql.startsWith("update"));
+    }
+
+    public static long deletes() {
+        return count(sql -> sql.startsWith("delete"));
+    }
+
+    public static void assertSelectsAtMost(long expected) {
+        assertAtMost("select", selects(), expected);
+    }
+
+    public static void assertTotalAtMost(long expected) {
+        assertAtMost("SQL", total(), expected);
+    }
+
+    private static void assertAtMost(String kind, long actual, long expected) {
+        if (actual > expected) {
+            throw new AssertionError(String.format("Expected at most %d %s statements but %d were issued:%n%s",
+                    expected, kind, actual, statements().stream().collect(Collectors.joining(System.lineSeparator()))));
+        }
+    }
+
+    private static long count(Predicate<String> kind) {
+        return statements().stream()
+                .map(sql -> sql.trim().toLowerCase(Locale.ROOT))
+                .filter(kind)
+                .count();
+    }
+}